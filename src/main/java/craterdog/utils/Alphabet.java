@@ -0,0 +1,292 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+
+/**
+ * This class captures the character set used by a power of two number base and provides
+ * generic encoding and decoding functions that work on any kind of buffer, including direct
+ * buffers.  Bytes are pushed through a small bit accumulator so no intermediate arrays are
+ * needed.  The encoded characters are not formatted into lines.
+ *
+ * @author Derk Norton
+ */
+final class Alphabet {
+
+    private final char[] characters;  // the character for each chunk value
+    private final byte[] chunks;  // the chunk value for each ASCII character
+    private final int bitsPerCharacter;
+    private final int mask;
+    private final int bytesPerBlock;
+    private final int charactersPerBlock;
+    private final boolean padded;  // whether or not partial blocks are padded with '=' characters
+
+
+    /**
+     * This constructor creates a new alphabet for the specified characters.
+     *
+     * @param characters The characters for each chunk value in ascending order.
+     * @param padded Whether or not partial blocks are padded with '=' characters.
+     */
+    Alphabet(String characters, boolean padded) {
+        this(characters, padded, null);
+    }
+
+
+    /**
+     * This constructor creates a new alphabet for the specified characters that decodes
+     * characters using a precomputed table, for example one that also accepts lower case
+     * characters.
+     *
+     * @param characters The characters for each chunk value in ascending order.
+     * @param padded Whether or not partial blocks are padded with '=' characters.
+     * @param chunks The chunk value for each ASCII character (or -1), or null to compute it.
+     */
+    Alphabet(String characters, boolean padded, byte[] chunks) {
+        this.characters = characters.toCharArray();
+        this.bitsPerCharacter = Integer.numberOfTrailingZeros(characters.length());
+        this.mask = characters.length() - 1;
+        int bitsPerBlock = bitsPerCharacter * 8 / gcd(bitsPerCharacter, 8);  // least common multiple
+        this.bytesPerBlock = bitsPerBlock / 8;
+        this.charactersPerBlock = bitsPerBlock / bitsPerCharacter;
+        this.padded = padded;
+        if (chunks != null) {
+            this.chunks = chunks.clone();
+        } else {
+            this.chunks = new byte[128];
+            Arrays.fill(this.chunks, (byte) -1);
+            for (int i = 0; i < this.characters.length; i++) {
+                this.chunks[this.characters[i]] = (byte) i;
+            }
+        }
+    }
+
+
+    /**
+     * This method returns the number of bits encoded by each character.
+     *
+     * @return The number of bits per character.
+     */
+    int bitsPerCharacter() {
+        return bitsPerCharacter;
+    }
+
+
+    /**
+     * This method returns the number of characters in each block.
+     *
+     * @return The number of characters per block.
+     */
+    int charactersPerBlock() {
+        return charactersPerBlock;
+    }
+
+
+    /**
+     * This method returns whether or not partial blocks are padded with '=' characters.
+     *
+     * @return Whether or not partial blocks are padded.
+     */
+    boolean isPadded() {
+        return padded;
+    }
+
+
+    /**
+     * This method returns the character for a chunk value.
+     *
+     * @param chunk The chunk value.
+     * @return The corresponding character.
+     */
+    char encodeChunk(int chunk) {
+        return characters[chunk & mask];
+    }
+
+
+    /**
+     * This method returns the chunk value for a character.
+     *
+     * @param character The character.
+     * @return The corresponding chunk value, or -1 if the character is not in the alphabet.
+     */
+    int decodeCharacter(char character) {
+        return character < 128 ? chunks[character] : -1;
+    }
+
+
+    /**
+     * This method encodes the remaining bytes in the source buffer into the destination buffer.
+     * The source buffer is assumed to hold the rest of the bytes to be encoded, so a final
+     * partial block is encoded once it is all that remains.  The encoding stops when the
+     * destination buffer does not have room for the next block of characters.
+     *
+     * @param source The buffer containing the bytes to be encoded.
+     * @param destination The buffer to receive the encoded characters.
+     * @return The number of characters inserted into the destination buffer.
+     */
+    int encode(ByteBuffer source, CharBuffer destination) {
+        int start = destination.position();
+        int length = encodedBytes(source.remaining(), destination.remaining());
+        int accumulator = 0;
+        int bits = 0;
+        for (int i = 0; i < length; i++) {
+            accumulator = (accumulator << 8) | (source.get() & 0xFF);
+            bits += 8;
+            while (bits >= bitsPerCharacter) {
+                bits -= bitsPerCharacter;
+                destination.put(characters[(accumulator >>> bits) & mask]);
+            }
+        }
+        if (bits > 0) {
+            // pad the last character with 0's
+            destination.put(characters[(accumulator << (bitsPerCharacter - bits)) & mask]);
+            while (padded && (destination.position() - start) % charactersPerBlock != 0) {
+                destination.put('=');
+            }
+        }
+        return destination.position() - start;
+    }
+
+
+    /**
+     * This method encodes the remaining bytes in the source buffer into the destination buffer
+     * as ASCII characters.  The source buffer is assumed to hold the rest of the bytes to be
+     * encoded, so a final partial block is encoded once it is all that remains.  The encoding
+     * stops when the destination buffer does not have room for the next block of characters.
+     *
+     * @param source The buffer containing the bytes to be encoded.
+     * @param destination The buffer to receive the encoded ASCII characters.
+     * @return The number of characters inserted into the destination buffer.
+     */
+    int encode(ByteBuffer source, ByteBuffer destination) {
+        int start = destination.position();
+        int length = encodedBytes(source.remaining(), destination.remaining());
+        int accumulator = 0;
+        int bits = 0;
+        for (int i = 0; i < length; i++) {
+            accumulator = (accumulator << 8) | (source.get() & 0xFF);
+            bits += 8;
+            while (bits >= bitsPerCharacter) {
+                bits -= bitsPerCharacter;
+                destination.put((byte) characters[(accumulator >>> bits) & mask]);
+            }
+        }
+        if (bits > 0) {
+            // pad the last character with 0's
+            destination.put((byte) characters[(accumulator << (bitsPerCharacter - bits)) & mask]);
+            while (padded && (destination.position() - start) % charactersPerBlock != 0) {
+                destination.put((byte) '=');
+            }
+        }
+        return destination.position() - start;
+    }
+
+
+    /**
+     * This method decodes the remaining characters in the source buffer into the destination
+     * buffer.  The source buffer is assumed to hold the rest of the characters to be decoded,
+     * so a final partial block is decoded once it is all that remains.  The decoding stops when
+     * the destination buffer does not have room for the next block of bytes.  Any character
+     * sequence can be decoded without copying it by wrapping it using <code>CharBuffer.wrap</code>.
+     *
+     * @param source The buffer containing the characters to be decoded.
+     * @param destination The buffer to receive the decoded bytes.
+     * @return The number of bytes inserted into the destination buffer.
+     */
+    int decode(CharBuffer source, ByteBuffer destination) {
+        int start = destination.position();
+        while (source.hasRemaining()) {
+            // find the number of characters in the next block, ignoring any padding
+            int available = Math.min(source.remaining(), charactersPerBlock);
+            int length = available;
+            while (padded && length > 0 && source.get(source.position() + length - 1) == '=') length--;
+            int count = length * bitsPerCharacter / 8;
+            if (count * 8 + bitsPerCharacter <= length * bitsPerCharacter) {
+                // no number of bytes encodes to this length
+                throw new NumberFormatException("Attempted to decode an invalid number of characters: " + length);
+            }
+            if (destination.remaining() < count) break;
+            if (available < charactersPerBlock && length < available) {
+                // padding must fill out a whole block
+                throw new NumberFormatException("Attempted to decode characters with invalid padding.");
+            }
+            int accumulator = 0;
+            int bits = 0;
+            for (int i = 0; i < length; i++) {
+                char character = source.get();
+                int chunk = character < 128 ? chunks[character] : -1;
+                if (chunk < 0) throw new NumberFormatException("Attempted to decode an invalid character: " + character);
+                accumulator = (accumulator << bitsPerCharacter) | chunk;
+                bits += bitsPerCharacter;
+                if (bits >= 8) {
+                    bits -= 8;
+                    destination.put((byte) (accumulator >>> bits));
+                }
+            }
+            source.position(source.position() + available - length);  // skip any padding
+        }
+        return destination.position() - start;
+    }
+
+
+    /**
+     * This method determines how many bytes from the source can be encoded into the room that is
+     * left in the destination without splitting a block.
+     */
+    private int encodedBytes(int remaining, int room) {
+        int blocks = Math.min(remaining / bytesPerBlock, room / charactersPerBlock);
+        int length = blocks * bytesPerBlock;
+        int rest = remaining - length;
+        if (rest > 0 && rest < bytesPerBlock) {
+            // the final partial block fits if it needs no more characters than a whole block
+            int needed = padded ? charactersPerBlock : (rest * 8 + bitsPerCharacter - 1) / bitsPerCharacter;
+            if (room - blocks * charactersPerBlock >= needed) length = remaining;
+        }
+        return length;
+    }
+
+
+    /**
+     * This function determines whether or not a character is white space, using the same
+     * characters as the regular expression "\\s".
+     *
+     * @param character The character to be checked.
+     * @return Whether or not the character is white space.
+     */
+    static boolean isWhiteSpace(char character) {
+        return character == ' ' || (character >= '\t' && character <= '\r');
+    }
+
+
+    /**
+     * This function counts the characters in a string that are not white space.
+     *
+     * @param string The string to be checked.
+     * @return The number of characters in the string that are not white space.
+     */
+    static int countCharacters(CharSequence string) {
+        int length = string.length();
+        int count = length;
+        for (int i = 0; i < length; i++) {
+            if (isWhiteSpace(string.charAt(i))) count--;
+        }
+        return count;
+    }
+
+
+    static private int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+}
@@ -0,0 +1,383 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+
+/**
+ * This class implements a codec for a power of two number base that uses a custom alphabet,
+ * for example the RFC 4648 or Crockford variants of base 32.  The number of bits encoded by
+ * each character is determined by the size of the alphabet, which must be 2, 4, 8, 16, 32 or 64
+ * ASCII characters.  The encoding and decoding tables are computed once when the codec is built,
+ * and the bytes are converted a whole block at a time, just like the built-in number bases.  A
+ * codec is immutable and may be shared between threads.
+ * <p>
+ * Number bases that are not a power of two (e.g. base 58) cannot be encoded a fixed number of
+ * bits at a time and are not supported.
+ *
+ * @author Derk Norton
+ */
+public final class AlphabetCodec implements Codec {
+
+    /**
+     * The base 32 encoding defined in RFC 4648, with '=' padding.
+     */
+    static public final AlphabetCodec RFC4648_BASE32 =
+            new Builder("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567").padded().build();
+
+    /**
+     * The base 32 encoding with the extended hex alphabet defined in RFC 4648, with '=' padding.
+     */
+    static public final AlphabetCodec RFC4648_BASE32_HEX =
+            new Builder("0123456789ABCDEFGHIJKLMNOPQRSTUV").padded().build();
+
+    /**
+     * The base 32 encoding defined by Douglas Crockford.  Decoding ignores case and accepts
+     * 'O' for '0', and 'I' or 'L' for '1'.
+     */
+    static public final AlphabetCodec CROCKFORD_BASE32 =
+            new Builder("0123456789ABCDEFGHJKMNPQRSTVWXYZ").ignoringCase()
+                    .withAlias('O', '0').withAlias('I', '1').withAlias('L', '1').build();
+
+    /**
+     * The human oriented base 32 encoding defined by the z-base-32 specification.
+     */
+    static public final AlphabetCodec Z_BASE32 =
+            new Builder("ybndrfg8ejkmcpqxot1uwisza345h769").build();
+
+
+    /**
+     * This class builds an alphabet codec.  Each method returns the builder so that the calls
+     * can be chained.
+     */
+    static public final class Builder {
+
+        private final String characters;
+        private final byte[] chunks = new byte[128];  // the chunk value for each ASCII character
+        private boolean padded;
+        private boolean ignoringCase;
+
+
+        /**
+         * This constructor creates a new builder for the specified alphabet.
+         *
+         * @param characters The character for each chunk value in ascending order.
+         * @throws IllegalArgumentException The alphabet is not a power of two distinct ASCII characters.
+         */
+        public Builder(String characters) {
+            int size = characters.length();
+            if (size < 2 || size > 64 || Integer.bitCount(size) != 1) {
+                throw new IllegalArgumentException("The alphabet must contain 2, 4, 8, 16, 32 or 64 characters: " + characters);
+            }
+            this.characters = characters;
+            Arrays.fill(chunks, (byte) -1);
+            for (int i = 0; i < size; i++) {
+                char character = characters.charAt(i);
+                if (character > 127 || character == '=' || Alphabet.isWhiteSpace(character) || chunks[character] >= 0) {
+                    throw new IllegalArgumentException("The alphabet contains an invalid or duplicate character: " + characters);
+                }
+                chunks[character] = (byte) i;
+            }
+        }
+
+
+        /**
+         * This method specifies that partial blocks are padded with '=' characters.
+         *
+         * @return This builder.
+         */
+        public Builder padded() {
+            this.padded = true;
+            return this;
+        }
+
+
+        /**
+         * This method specifies that the upper and lower case versions of each letter in the
+         * alphabet, and of any aliases whether they are added before or after this call, are
+         * decoded as the same chunk value.
+         *
+         * @return This builder.
+         */
+        public Builder ignoringCase() {
+            this.ignoringCase = true;
+            byte[] existing = chunks.clone();  // the alphabet and any aliases added so far
+            for (char character = 0; character < existing.length; character++) {
+                int chunk = existing[character];
+                if (chunk >= 0) {
+                    addAlias(Character.toLowerCase(character), chunk);
+                    addAlias(Character.toUpperCase(character), chunk);
+                }
+            }
+            return this;
+        }
+
+
+        /**
+         * This method specifies an additional character that is decoded as the chunk value of a
+         * character in the alphabet.
+         *
+         * @param alias The additional ASCII character.
+         * @param character The character in the alphabet that it stands for.
+         * @return This builder.
+         */
+        public Builder withAlias(char alias, char character) {
+            int chunk = characters.indexOf(character);
+            if (chunk < 0) throw new IllegalArgumentException("The character is not in the alphabet: " + character);
+            addAlias(alias, chunk);
+            if (ignoringCase) {
+                addAlias(Character.toLowerCase(alias), chunk);
+                addAlias(Character.toUpperCase(alias), chunk);
+            }
+            return this;
+        }
+
+
+        /**
+         * This method builds the codec.
+         *
+         * @return The new immutable codec.
+         */
+        public AlphabetCodec build() {
+            return new AlphabetCodec(characters, chunks, padded);
+        }
+
+
+        private void addAlias(char alias, int chunk) {
+            if (alias > 127 || alias == '=' || Alphabet.isWhiteSpace(alias) || (chunks[alias] >= 0 && chunks[alias] != chunk)) {
+                throw new IllegalArgumentException("The alias is invalid or already in use: " + alias);
+            }
+            chunks[alias] = (byte) chunk;
+        }
+
+    }
+
+
+    private final char[] characters;  // the character for each chunk value
+    private final byte[] chunks;  // the chunk value for each ASCII character, or -1
+    private final int bitsPerCharacter;
+    private final int mask;
+    private final int bytesPerBlock;
+    private final int charactersPerBlock;
+    private final boolean padded;
+    final Alphabet alphabet;  // the generic alphabet used for transcoding
+
+
+    private AlphabetCodec(String characters, byte[] chunks, boolean padded) {
+        this.characters = characters.toCharArray();
+        this.chunks = chunks.clone();
+        this.padded = padded;
+        this.alphabet = new Alphabet(characters, padded, chunks);
+        this.bitsPerCharacter = alphabet.bitsPerCharacter();
+        this.mask = characters.length() - 1;
+        this.charactersPerBlock = alphabet.charactersPerBlock();
+        this.bytesPerBlock = charactersPerBlock * bitsPerCharacter / 8;
+    }
+
+
+    /**
+     * This method encodes a byte array with no indentation of new lines.
+     *
+     * @param bytes The byte array to be encoded.
+     * @return The encoded string.
+     */
+    public String encode(byte[] bytes) {
+        return encode(bytes, null);
+    }
+
+
+    /**
+     * This method encodes a byte array and formats the result into indented 80 character lines.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @return The encoded string.
+     */
+    public String encode(byte[] bytes, String indentation) {
+        return encode(bytes, indentation, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This method encodes a byte array and formats the result into indented lines of the
+     * specified width.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @return The encoded string.
+     */
+    public String encode(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.format(this, bytesPerBlock, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This method decodes a string back into a byte array.  Any white space in the string
+     * (e.g. the line breaks and indentation inserted by the <code>encode</code> methods) is
+     * skipped.
+     *
+     * @param string The string to be decoded.
+     * @return The decoded bytes.
+     * @throws NumberFormatException The string is not encoded using this alphabet.
+     */
+    public byte[] decode(String string) {
+        int count = 0;  // the number of characters that are not white space or padding
+        for (int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+            if (decodeCharacter(character) >= 0) count++;
+        }
+        byte[] bytes = new byte[(int) ((long) count * bitsPerCharacter / 8)];
+        decodeCharacters(string, 0, string.length(), bytes, 0, false);
+        return bytes;
+    }
+
+
+    @Override
+    public int encodedLength(int length) {
+        long characters = (long) length / bytesPerBlock * charactersPerBlock;
+        int remaining = length % bytesPerBlock;
+        if (remaining > 0) characters += padded ? charactersPerBlock : (remaining * 8 + bitsPerCharacter - 1) / bitsPerCharacter;
+        return (int) characters;
+    }
+
+
+    @Override
+    public int decodedLength(char[] source, int offset, int length) {
+        int end = offset + length;
+        while (padded && end > offset && source[end - 1] == '=') end--;  // ignore any padding
+        return (int) ((long) (end - offset) * bitsPerCharacter / 8);
+    }
+
+
+    @Override
+    public int encode(byte[] source, int offset, int length, char[] destination, int index) {
+        return encodeBytes(source, offset, length, destination, index) - index;
+    }
+
+
+    @Override
+    public int decode(char[] source, int offset, int length, byte[] destination, int index) {
+        return decodeCharacters(CharBuffer.wrap(source, offset, length), 0, length, destination, index, true) - index;
+    }
+
+
+    // Each block of bytes is encoded as a fixed number of characters, most significant bits
+    // first, e.g. for base 32:
+    // byte:  00000111|11222223|33334444|45555566|66677777
+    // A final partial block is padded with 0 bits out to the end of its last character,
+    // followed by '=' characters out to the end of the block if the codec is padded.
+    private int encodeBytes(byte[] bytes, int offset, int length, char[] chars, int index) {
+        int first = (charactersPerBlock - 1) * bitsPerCharacter;  // the shift for the first character
+        int end = offset + length;
+        int i = offset;
+        while (end - i >= bytesPerBlock) {
+            long block = 0;
+            for (int j = 0; j < bytesPerBlock; j++) {
+                block = (block << 8) | (bytes[i++] & 0xFFL);
+            }
+            for (int shift = first; shift >= 0; shift -= bitsPerCharacter) {
+                chars[index++] = characters[(int) (block >>> shift) & mask];
+            }
+        }
+        int remaining = end - i;
+        if (remaining > 0) {
+            // same as normal, but pad with 0's in the missing bytes
+            long block = 0;
+            for (int j = 0; j < bytesPerBlock; j++) {
+                block <<= 8;
+                if (j < remaining) block |= bytes[i++] & 0xFFL;
+            }
+            int count = (remaining * 8 + bitsPerCharacter - 1) / bitsPerCharacter;
+            for (int shift = first, j = 0; j < charactersPerBlock; shift -= bitsPerCharacter, j++) {
+                if (j < count) {
+                    chars[index++] = characters[(int) (block >>> shift) & mask];
+                } else if (padded) {
+                    chars[index++] = '=';
+                }
+            }
+        }
+        return index;
+    }
+
+
+    private int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index, boolean strict) {
+        int end = offset + length;
+        int i = offset;
+        long block = 0;
+        int count = 0;  // the number of characters in a partially decoded block
+        while (i < end) {
+            if (count == 0 && end - i >= charactersPerBlock) {
+                // decode a whole block at a time while there is no white space or padding
+                block = 0;
+                int check = 0;
+                for (int j = i; j < i + charactersPerBlock; j++) {
+                    int chunk = decodeCharacter(string.charAt(j));
+                    check |= chunk;
+                    block = (block << bitsPerCharacter) | chunk;
+                }
+                if (check >= 0) {
+                    index = decodeBlock(block, bytesPerBlock, bytes, index);
+                    i += charactersPerBlock;
+                    continue;
+                }
+                block = 0;
+            }
+            char character = string.charAt(i++);
+            int chunk = decodeCharacter(character);
+            if (chunk < 0) {
+                if (padded && character == '=') {
+                    // the rest must be padding
+                    for (; i < end; i++) {
+                        character = string.charAt(i);
+                        if (character != '=' && (strict || !Alphabet.isWhiteSpace(character))) {
+                            throw new NumberFormatException("Attempted to decode a string with invalid padding: " + string);
+                        }
+                    }
+                    break;
+                }
+                if (!strict && Alphabet.isWhiteSpace(character)) continue;  // skip any white space
+                throw new NumberFormatException("Attempted to decode a string that is not encoded using the alphabet: " + string);
+            }
+            block = (block << bitsPerCharacter) | chunk;
+            if (++count == charactersPerBlock) {
+                index = decodeBlock(block, bytesPerBlock, bytes, index);
+                block = 0;
+                count = 0;
+            }
+        }
+        if (count * bitsPerCharacter % 8 >= bitsPerCharacter) {
+            // no number of bytes encodes to this length
+            throw new NumberFormatException("Attempted to decode an invalid number of characters: " + string);
+        }
+        if (count > 0) {
+            // same as normal, but drop the bits that don't fill a whole byte
+            block <<= (charactersPerBlock - count) * bitsPerCharacter;
+            index = decodeBlock(block, count * bitsPerCharacter / 8, bytes, index);
+        }
+        return index;
+    }
+
+
+    private int decodeBlock(long block, int count, byte[] bytes, int index) {
+        for (int shift = (bytesPerBlock - 1) * 8; count > 0; shift -= 8, count--) {
+            bytes[index++] = (byte) (block >>> shift);
+        }
+        return index;
+    }
+
+
+    private int decodeCharacter(char character) {
+        return character < 128 ? chunks[character] : -1;
+    }
+
+}
@@ -0,0 +1,78 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * This class provides a read-only character sequence view of the ASCII characters in a byte
+ * buffer, so that they can be decoded in place without first being converted into a string.
+ * Each byte is treated as a single character, so any byte that is not ASCII is simply a
+ * character that is not part of any number base.
+ *
+ * @author Derk Norton
+ */
+final class AsciiSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int offset;  // the index in the buffer of the first character
+    private final int length;
+
+
+    /**
+     * This constructor creates a view of the remaining bytes in a byte buffer.  The position
+     * of the buffer is not changed.
+     *
+     * @param buffer The byte buffer containing the ASCII characters.
+     */
+    AsciiSequence(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.remaining());
+    }
+
+
+    private AsciiSequence(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException("Invalid range: " + start + ".." + end);
+        return new AsciiSequence(buffer, offset + start, end - start);
+    }
+
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+}
@@ -9,6 +9,12 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.BitSet;
+
+
 /**
  * This utility class provides functions for encoding and decoding byte arrays
  * using base 2.  The character set used for the encoding includes the following
@@ -18,6 +24,12 @@ package craterdog.utils;
  */
 public final class Base02Utils {
 
+    /**
+     * The codec for base 2, for code that chooses its number base at runtime.
+     */
+    static public final Codec codec = new Base02Codec();
+
+
     /**
      * This function encodes a byte array using base 2 with no indentation of new lines.
      *
@@ -25,7 +37,7 @@ public final class Base02Utils {
      * @return The base 2 encoded string.
      */
     static public String encode(byte[] bytes) {
-        return encode(bytes, null);
+        return encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH);
     }
 
 
@@ -37,59 +49,493 @@ public final class Base02Utils {
      * @return The base 2 encoded string.
      */
     static public String encode(byte[] bytes, String indentation) {
-        StringBuilder result = new StringBuilder();
-        int length = bytes.length;
-        if (length == 0) return "";  // empty byte array
-        if (indentation != null) result.append(indentation);
-        encodeByte(bytes, 0, result);
-        for (int i = 1; i < length; i++) {
-            if (i % 10 == 0) {
-                // format to indented 80 character blocks
-                result.append("\n");
-                if (indentation != null) result.append(indentation);
-            }
-            encodeByte(bytes, i, result);
+        return encode(bytes, indentation, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 2 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation).
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 2 encoded string.
+     */
+    static public String encode(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.format(codec, 1, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 2 with no indentation of new lines and
+     * appends the encoded characters to an appendable (e.g. a string builder, writer or character
+     * buffer) rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param destination The appendable to receive the base 2 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, Appendable destination) throws IOException {
+        encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 2 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * appends the encoded characters to an appendable rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The appendable to receive the base 2 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, String indentation, int lineWidth, Appendable destination) throws IOException {
+        LineFormatter.format(codec, 1, bytes, indentation, lineWidth, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 2 with no indentation of new lines and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @return The base 2 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes) {
+        return encodeToAscii(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 2 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 2 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.formatAscii(codec, 1, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 2 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * inserts the encoded characters into a byte buffer as ASCII characters.  The buffer may be a
+     * heap or direct buffer, and its position is advanced past the inserted characters.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The byte buffer to receive the base 2 encoded ASCII characters.
+     * @return The number of characters inserted into the byte buffer.
+     * @throws java.nio.BufferOverflowException The byte buffer does not have room for all of the
+     * characters, in which case nothing is inserted.
+     */
+    static public int encodeToAscii(byte[] bytes, String indentation, int lineWidth, ByteBuffer destination) {
+        return LineFormatter.formatAscii(codec, 1, bytes, indentation, lineWidth, destination);
+    }
+
+
+    /**
+     * This function encodes the first bits of a bit set using base 2 with no indentation of new
+     * lines.  The character at each position in the encoded string (not counting white space)
+     * is '1' if the bit with the same index is set, and '0' otherwise.
+     *
+     * @param bits The bit set to be encoded.
+     * @param length The number of bits to be encoded, which must be a multiple of 8.
+     * @return The base 2 encoded string.
+     */
+    static public String encode(BitSet bits, int length) {
+        if (length < 0 || length % 8 != 0) throw new IllegalArgumentException("The number of bits must be a multiple of 8: " + length);
+        byte[] bytes = new byte[length / 8];
+        byte[] set = bits.toByteArray();  // bit i is bit (i % 8) of byte (i / 8)
+        for (int i = 0; i < Math.min(set.length, bytes.length); i++) {
+            bytes[i] = reverse(set[i]);
         }
-        return result.toString();
+        return encode(bytes);
+    }
+
+
+    /**
+     * This function encodes an array of longs using base 2 with no indentation of new lines.
+     * Each long is encoded as 64 characters, most significant bit first.
+     *
+     * @param words The array of longs to be encoded.
+     * @return The base 2 encoded string.
+     */
+    static public String encode(long[] words) {
+        byte[] bytes = new byte[words.length * 8];
+        ByteBuffer.wrap(bytes).asLongBuffer().put(words);
+        return encode(bytes);
     }
 
 
     /**
-     * This function decodes a base 2 string into its corresponding byte array.
+     * This function decodes a base 2 string into its corresponding byte array.  Any white
+     * space in the string (e.g. line breaks and indentation) is skipped.
      *
      * @param base2 The base 2 encoded string.
      * @return The corresponding byte array.
      */
     static public byte[] decode(String base2) {
-        String string = base2.replaceAll("\\s", "");  // remove all white space
-        int length = string.length();
-        byte[] bytes = new byte[(int) Math.ceil(length / 8.0)];
+        return decodeSequence(base2, false);
+    }
+
+
+    /**
+     * This function decodes a compact base 2 string, one that contains no white space at all,
+     * into its corresponding byte array.  A string containing any white space is rejected.
+     *
+     * @param base2 The compact base 2 encoded string.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeStrict(String base2) {
+        return decodeSequence(base2, true);
+    }
+
+
+    /**
+     * This function determines whether or not a string is valid base 2, meaning that the
+     * <code>decode</code> function would accept it.  Any white space in the string is skipped.
+     * No memory is allocated whether or not the string is valid.
+     *
+     * @param base2 The string to be checked.
+     * @return Whether or not the string is valid base 2.
+     */
+    static public boolean isValid(CharSequence base2) {
+        return scanCharacters(base2) >= 0;
+    }
+
+
+    /**
+     * This function determines the number of bytes that a base 2 string decodes to without
+     * decoding it.  Any white space in the string is skipped.  No memory is allocated whether or
+     * not the string is valid.
+     *
+     * @param base2 The base 2 encoded string.
+     * @return The number of bytes that the string decodes to, or -1 if it is not valid base 2.
+     */
+    static public int decodedLength(CharSequence base2) {
+        int length = scanCharacters(base2);
+        return length < 0 ? -1 : length;
+    }
+
+
+    /**
+     * This function decodes a base 2 string into an existing byte array, reporting rather than
+     * throwing an exception if the string is not valid.  Any white space in the string is
+     * skipped.  No memory is allocated whether or not the string is valid.  The byte array must
+     * have room for the number of bytes returned by the <code>decodedLength</code> function.
+     *
+     * @param base2 The base 2 encoded string.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of bytes decoded, or if the string is not valid, <code>(-(i + 1))</code>
+     * where <code>i</code> is the index of the first invalid character, or the length of the
+     * string if it ends with an incomplete block of characters.
+     */
+    static public int tryDecode(CharSequence base2, byte[] bytes, int index) {
+        int length = scanCharacters(base2);
+        if (length < 0) return length;
+        decodeCharacters(base2, 0, base2.length(), bytes, index, false);
+        return length;
+    }
+
+
+    /**
+     * This function decodes base 2 ASCII characters into their corresponding byte array without
+     * first converting them into a string.  Any white space (e.g. line breaks and indentation) is
+     * skipped.
+     *
+     * @param ascii The base 2 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii) {
+        return decodeFromAscii(ascii, 0, ascii.length);
+    }
+
+
+    /**
+     * This function decodes a range of base 2 ASCII characters into their corresponding byte
+     * array without first converting them into a string.  Any white space (e.g. line breaks and
+     * indentation) is skipped.
+     *
+     * @param ascii The byte array containing the base 2 encoded ASCII characters.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters to be decoded.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii, int offset, int length) {
+        return decodeFromAscii(ByteBuffer.wrap(ascii, offset, length));
+    }
+
+
+    /**
+     * This function decodes the remaining base 2 ASCII characters in a byte buffer into their
+     * corresponding byte array without first converting them into a string.  Any white space
+     * (e.g. line breaks and indentation) is skipped.  The buffer may be a heap or direct buffer,
+     * and its position is advanced to its limit.
+     *
+     * @param source The byte buffer containing the base 2 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(ByteBuffer source) {
+        byte[] bytes = decodeSequence(new AsciiSequence(source), false);
+        source.position(source.limit());
+        return bytes;
+    }
+
+
+    /**
+     * This function decodes a base 2 string into the bit set that the <code>encode(BitSet, int)</code>
+     * function would encode to it.  Any white space in the string (e.g. line breaks and indentation)
+     * is skipped.
+     *
+     * @param base2 The base 2 encoded string.
+     * @return The corresponding bit set.
+     */
+    static public BitSet decodeToBitSet(String base2) {
+        byte[] bytes = decode(base2);
         for (int i = 0; i < bytes.length; i++) {
-            decodeByte(string, i, bytes);
+            bytes[i] = reverse(bytes[i]);
         }
-        return bytes;
+        return BitSet.valueOf(bytes);
+    }
+
+
+    /**
+     * This function decodes a base 2 string into its corresponding array of longs.  Any white
+     * space in the string (e.g. line breaks and indentation) is skipped.
+     *
+     * @param base2 The base 2 encoded string, containing a multiple of 64 characters.
+     * @return The corresponding array of longs.
+     */
+    static public long[] decodeToLongs(String base2) {
+        byte[] bytes = decode(base2);
+        if (bytes.length % 8 != 0) throw new NumberFormatException("Attempted to decode a string that is not a whole number of longs: " + base2);
+        long[] words = new long[bytes.length / 8];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(words);
+        return words;
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 2 and inserts the
+     * resulting characters into a character buffer, with no formatting of new lines.  Either
+     * buffer may be a heap or direct buffer.  The positions of both buffers are advanced past the
+     * bytes consumed and the characters produced, so if the character buffer fills up this function
+     * may be called again, after draining it, to encode the rest of the bytes.  The byte buffer is
+     * assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The character buffer to receive the base 2 encoded characters.
+     * @return The number of characters inserted into the character buffer.
+     */
+    static public int encode(ByteBuffer source, CharBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 2 and inserts the
+     * resulting characters into another byte buffer as ASCII characters, with no formatting of new
+     * lines.  Either buffer may be a heap or direct buffer.  The positions of both buffers are
+     * advanced past the bytes consumed and the characters produced, so if the destination buffer
+     * fills up this function may be called again, after draining it, to encode the rest of the
+     * bytes.  The source buffer is assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The byte buffer to receive the base 2 encoded ASCII characters.
+     * @return The number of characters inserted into the destination buffer.
+     */
+    static public int encode(ByteBuffer source, ByteBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function decodes the remaining characters in a character buffer containing base 2
+     * characters, with no formatting of new lines, and inserts the resulting bytes into a byte
+     * buffer.  Any character sequence may be decoded without copying it by wrapping it using
+     * <code>CharBuffer.wrap</code>.  The positions of both buffers are advanced past the characters
+     * consumed and the bytes produced, so if the byte buffer fills up this function may be called
+     * again, after draining it, to decode the rest of the characters.
+     *
+     * @param source The character buffer containing the base 2 encoded characters.
+     * @param destination The byte buffer to receive the decoded bytes.
+     * @return The number of bytes inserted into the byte buffer.
+     */
+    static public int decode(CharBuffer source, ByteBuffer destination) {
+        return alphabet.decode(source, destination);
     }
 
 
     static private final String lookupTable = "01";
 
-    static private void encodeByte(byte[] bytes, int byteIndex, StringBuilder result) {
-        for (int i = 0; i < 8; i++) {
-            int bit = (bytes[byteIndex] & (1 << (7 - i))) >>> (7 - i);
-            result.append(bit);
+    // the generic alphabet used for buffer conversions
+    static final Alphabet alphabet = new Alphabet(lookupTable, false);
+
+    // the eight characters of the encoding for each possible byte value
+    static private final char[] octets = new char[256 * 8];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            for (int i = 0; i < 8; i++) {
+                octets[b * 8 + i] = lookupTable.charAt((b >>> (7 - i)) & 1);
+            }
+        }
+    }
+
+
+    static int encodeBytes(byte[] bytes, int offset, int length, char[] chars, int index) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            System.arraycopy(octets, (bytes[i] & 0xFF) << 3, chars, index, 8);
+            index += 8;
         }
+        return index;
     }
 
 
-    static private void decodeByte(String string, int byteIndex, byte[] bytes) {
+    static int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index, boolean strict) {
+        int end = offset + length;
+        int i = offset;
         int b = 0;
-        for (int i = 0; i < 8; i++) {
-            char character = string.charAt(byteIndex * 8 + i);
-            int bit = lookupTable.indexOf(character);
-            if (bit < 0) throw new NumberFormatException("Attempted to decode a string that is not base 2: " + string);
+        int count = 0;  // the number of bits in a partially decoded byte
+        while (i < end) {
+            if (count == 0 && end - i >= 8) {
+                // decode a whole byte at a time while there is no white space
+                long octet = 0;
+                int check = 0;
+                for (int j = i; j < i + 8; j++) {
+                    char character = string.charAt(j);
+                    check |= character;
+                    octet = (octet << 8) | character;
+                }
+                int value = decodeOctet(octet, check);
+                if (value >= 0) {
+                    bytes[index++] = (byte) value;
+                    i += 8;
+                    continue;
+                }
+            }
+            char character = string.charAt(i++);
+            int bit = character - '0';
+            if ((bit & ~1) != 0) {
+                if (!strict && Alphabet.isWhiteSpace(character)) continue;  // skip any white space
+                throw new NumberFormatException("Attempted to decode a string that is not base 2: " + string);
+            }
             b = (b << 1) | bit;
+            if (++count == 8) {
+                bytes[index++] = (byte) b;
+                b = 0;
+                count = 0;
+            }
+        }
+        if (count > 0) throw new NumberFormatException("Attempted to decode a string that is not base 2: " + string);
+        return index;
+    }
+
+
+    static int decodeCharacters(char[] chars, int offset, int length, byte[] bytes, int index) {
+        if (length % 8 != 0) throw new NumberFormatException("Attempted to decode an invalid number of base 2 characters: " + length);
+        int end = offset + length;
+        for (int i = offset; i < end; i += 8) {
+            long octet = 0;
+            int check = 0;
+            for (int j = i; j < i + 8; j++) {
+                char character = chars[j];
+                check |= character;
+                octet = (octet << 8) | character;
+            }
+            int value = decodeOctet(octet, check);
+            if (value < 0) throw new NumberFormatException("Attempted to decode a character that is not base 2.");
+            bytes[index++] = (byte) value;
+        }
+        return index;
+    }
+
+
+    // Eight characters are packed into a long, one per byte with the first character in the high
+    // order byte, and decoded all at once.  Each byte must be '0' (0x30) or '1' (0x31), so its low
+    // order bit is the bit it encodes, and multiplying the low order bits by the magic constant
+    // shifts each one into its place within the high order byte of the product:
+    // octet:  0011000a|0011000b|0011000c|0011000d|0011000e|0011000f|0011000g|0011000h
+    // result: abcdefgh
+    // The check is the bitwise or of the characters, which catches any that don't fit in a byte.
+    static private int decodeOctet(long octet, int check) {
+        if ((check & 0xFF00) != 0 || (octet & ~0x0101010101010101L) != 0x3030303030303030L) return -1;
+        return (int) (((octet & 0x0101010101010101L) * 0x0102040810204080L) >>> 56);
+    }
+
+
+    // reverses the order of the bits in a byte
+    static private byte reverse(byte b) {
+        return (byte) (Integer.reverse(b) >>> 24);
+    }
+
+
+    static private byte[] decodeSequence(CharSequence string, boolean strict) {
+        int length = strict ? string.length() : Alphabet.countCharacters(string);
+        if (length % 8 != 0) throw new NumberFormatException("Attempted to decode a string that is not base 2: " + string);
+        byte[] bytes = new byte[length / 8];
+        decodeCharacters(string, 0, string.length(), bytes, 0, strict);
+        return bytes;
+    }
+
+
+    // returns the number of bytes that a string decodes to, or (-(i + 1)) where i is the index
+    // of the first invalid character (or the length of the string if a block is incomplete)
+    static private int scanCharacters(CharSequence string) {
+        int length = string.length();
+        int count = 0;  // the number of characters that are not white space
+        for (int i = 0; i < length; i++) {
+            char character = string.charAt(i);
+            if (((character - '0') & ~1) == 0) {
+                count++;
+            } else if (!Alphabet.isWhiteSpace(character)) {
+                return -1 - i;
+            }
+        }
+        if (count % 8 != 0) return -1 - length;  // an incomplete byte
+        return count / 8;
+    }
+
+
+    static private final class Base02Codec implements Codec {
+
+        @Override
+        public int encodedLength(int length) {
+            return length * 8;
+        }
+
+
+        @Override
+        public int decodedLength(char[] source, int offset, int length) {
+            return length / 8;
+        }
+
+
+        @Override
+        public int encode(byte[] source, int offset, int length, char[] destination, int index) {
+            return encodeBytes(source, offset, length, destination, index) - index;
+        }
+
+
+        @Override
+        public int decode(char[] source, int offset, int length, byte[] destination, int index) {
+            return decodeCharacters(source, offset, length, destination, index) - index;
         }
-        bytes[byteIndex] = (byte) b;
+
     }
 
 
@@ -9,6 +9,12 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+
 /**
  * This utility class provides functions for encoding and decoding byte arrays
  * using base 16.  The character set used for the encoding includes the following
@@ -18,6 +24,12 @@ package craterdog.utils;
  */
 public final class Base16Utils {
 
+    /**
+     * The codec for base 16, for code that chooses its number base at runtime.
+     */
+    static public final Codec codec = new Base16Codec();
+
+
     /**
      * This function encodes a byte array using base 16 with no indentation of new lines.
      *
@@ -25,7 +37,7 @@ public final class Base16Utils {
      * @return The base 16 encoded string.
      */
     static public String encode(byte[] bytes) {
-        return encode(bytes, null);
+        return encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH);
     }
 
 
@@ -37,58 +49,483 @@ public final class Base16Utils {
      * @return The base 16 encoded string.
      */
     static public String encode(byte[] bytes, String indentation) {
-        StringBuilder result = new StringBuilder();
-        int length = bytes.length;
-        if (length == 0) return "";  // empty byte array
-        if (indentation != null) result.append(indentation);
-        encodeByte(bytes, 0, result);
-        for (int i = 1; i < length; i++) {
-            if (i % 40 == 0) {
-                // format to indented 80 character blocks
-                result.append("\n");
-                if (indentation != null) result.append(indentation);
-            }
-            encodeByte(bytes, i, result);
-        }
-        return result.toString();
+        return encode(bytes, indentation, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 16 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation).
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 16 encoded string.
+     */
+    static public String encode(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.format(codec, 1, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 16 with no indentation of new lines and
+     * appends the encoded characters to an appendable (e.g. a string builder, writer or character
+     * buffer) rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param destination The appendable to receive the base 16 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, Appendable destination) throws IOException {
+        encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 16 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * appends the encoded characters to an appendable rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The appendable to receive the base 16 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, String indentation, int lineWidth, Appendable destination) throws IOException {
+        LineFormatter.format(codec, 1, bytes, indentation, lineWidth, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 16 with no indentation of new lines and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @return The base 16 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes) {
+        return encodeToAscii(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 16 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 16 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.formatAscii(codec, 1, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 16 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * inserts the encoded characters into a byte buffer as ASCII characters.  The buffer may be a
+     * heap or direct buffer, and its position is advanced past the inserted characters.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The byte buffer to receive the base 16 encoded ASCII characters.
+     * @return The number of characters inserted into the byte buffer.
+     * @throws java.nio.BufferOverflowException The byte buffer does not have room for all of the
+     * characters, in which case nothing is inserted.
+     */
+    static public int encodeToAscii(byte[] bytes, String indentation, int lineWidth, ByteBuffer destination) {
+        return LineFormatter.formatAscii(codec, 1, bytes, indentation, lineWidth, destination);
     }
 
 
     /**
-     * This function decodes a base 16 string into its corresponding byte array.
+     * This function decodes a base 16 string into its corresponding byte array.  Any white
+     * space in the string (e.g. line breaks and indentation) is skipped.
      *
      * @param base16 The base 16 encoded string.
      * @return The corresponding byte array.
      */
     static public byte[] decode(String base16) {
-        String string = base16.replaceAll("\\s", "");  // remove all white space
-        int length = string.length();
-        byte[] bytes = new byte[(int) Math.ceil(length / 2.0)];
-        for (int i = 0; i < bytes.length; i++) {
-            decodeByte(string, i, bytes);
-        }
+        return decodeSequence(base16, false);
+    }
+
+
+    /**
+     * This function decodes a compact base 16 string, one that contains no white space at all,
+     * into its corresponding byte array.  A string containing any white space is rejected.
+     *
+     * @param base16 The compact base 16 encoded string.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeStrict(String base16) {
+        return decodeSequence(base16, true);
+    }
+
+
+    /**
+     * This function determines whether or not a string is valid base 16, meaning that the
+     * <code>decode</code> function would accept it.  Any white space in the string is skipped.
+     * No memory is allocated whether or not the string is valid.
+     *
+     * @param base16 The string to be checked.
+     * @return Whether or not the string is valid base 16.
+     */
+    static public boolean isValid(CharSequence base16) {
+        return scanCharacters(base16) >= 0;
+    }
+
+
+    /**
+     * This function determines the number of bytes that a base 16 string decodes to without
+     * decoding it.  Any white space in the string is skipped.  No memory is allocated whether or
+     * not the string is valid.
+     *
+     * @param base16 The base 16 encoded string.
+     * @return The number of bytes that the string decodes to, or -1 if it is not valid base 16.
+     */
+    static public int decodedLength(CharSequence base16) {
+        int length = scanCharacters(base16);
+        return length < 0 ? -1 : length;
+    }
+
+
+    /**
+     * This function decodes a base 16 string into an existing byte array, reporting rather than
+     * throwing an exception if the string is not valid.  Any white space in the string is
+     * skipped.  No memory is allocated whether or not the string is valid.  The byte array must
+     * have room for the number of bytes returned by the <code>decodedLength</code> function.
+     *
+     * @param base16 The base 16 encoded string.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of bytes decoded, or if the string is not valid, <code>(-(i + 1))</code>
+     * where <code>i</code> is the index of the first invalid character, or the length of the
+     * string if it ends with an incomplete block of characters.
+     */
+    static public int tryDecode(CharSequence base16, byte[] bytes, int index) {
+        int length = scanCharacters(base16);
+        if (length < 0) return length;
+        decodeCharacters(base16, 0, base16.length(), bytes, index, false);
+        return length;
+    }
+
+
+    /**
+     * This function decodes base 16 ASCII characters into their corresponding byte array without
+     * first converting them into a string.  Any white space (e.g. line breaks and indentation) is
+     * skipped.
+     *
+     * @param ascii The base 16 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii) {
+        return decodeFromAscii(ascii, 0, ascii.length);
+    }
+
+
+    /**
+     * This function decodes a range of base 16 ASCII characters into their corresponding byte
+     * array without first converting them into a string.  Any white space (e.g. line breaks and
+     * indentation) is skipped.
+     *
+     * @param ascii The byte array containing the base 16 encoded ASCII characters.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters to be decoded.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii, int offset, int length) {
+        return decodeFromAscii(ByteBuffer.wrap(ascii, offset, length));
+    }
+
+
+    /**
+     * This function decodes the remaining base 16 ASCII characters in a byte buffer into their
+     * corresponding byte array without first converting them into a string.  Any white space
+     * (e.g. line breaks and indentation) is skipped.  The buffer may be a heap or direct buffer,
+     * and its position is advanced to its limit.
+     *
+     * @param source The byte buffer containing the base 16 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(ByteBuffer source) {
+        byte[] bytes = decodeSequence(new AsciiSequence(source), false);
+        source.position(source.limit());
         return bytes;
     }
 
 
+    /**
+     * This function decodes a range of base 16 ASCII characters in place, overwriting the
+     * beginning of the range with the decoded bytes.  The decoded bytes are always fewer than the
+     * characters, so no other buffer is needed.  Any white space is skipped.  If the characters
+     * are not valid base 16 the contents of the range are undefined, and the exception reports
+     * the offset of the first invalid character rather than the characters themselves.
+     *
+     * @param ascii The byte array containing the base 16 encoded ASCII characters.
+     * @param offset The index of the first character to be decoded, and of the first decoded byte.
+     * @param length The number of characters to be decoded.
+     * @return The number of decoded bytes.
+     */
+    static public int decodeInPlace(byte[] ascii, int offset, int length) {
+        if (offset < 0 || length < 0 || length > ascii.length - offset) throw new IndexOutOfBoundsException();
+        // each byte is written only after all of the characters that encode it have been read, and
+        // the characters are indexed by their position in the array so errors can report offsets
+        CharSequence characters = new AsciiSequence(ByteBuffer.wrap(ascii, 0, offset + length));
+        return decodeCharacters(characters, offset, length, ascii, offset, false, true) - offset;
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 16 and inserts the
+     * resulting characters into a character buffer, with no formatting of new lines.  Either
+     * buffer may be a heap or direct buffer.  The positions of both buffers are advanced past the
+     * bytes consumed and the characters produced, so if the character buffer fills up this function
+     * may be called again, after draining it, to encode the rest of the bytes.  The byte buffer is
+     * assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The character buffer to receive the base 16 encoded characters.
+     * @return The number of characters inserted into the character buffer.
+     */
+    static public int encode(ByteBuffer source, CharBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 16 and inserts the
+     * resulting characters into another byte buffer as ASCII characters, with no formatting of new
+     * lines.  Either buffer may be a heap or direct buffer.  The positions of both buffers are
+     * advanced past the bytes consumed and the characters produced, so if the destination buffer
+     * fills up this function may be called again, after draining it, to encode the rest of the
+     * bytes.  The source buffer is assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The byte buffer to receive the base 16 encoded ASCII characters.
+     * @return The number of characters inserted into the destination buffer.
+     */
+    static public int encode(ByteBuffer source, ByteBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function decodes the remaining characters in a character buffer containing base 16
+     * characters, with no formatting of new lines, and inserts the resulting bytes into a byte
+     * buffer.  Any character sequence may be decoded without copying it by wrapping it using
+     * <code>CharBuffer.wrap</code>.  The positions of both buffers are advanced past the characters
+     * consumed and the bytes produced, so if the byte buffer fills up this function may be called
+     * again, after draining it, to decode the rest of the characters.
+     *
+     * @param source The character buffer containing the base 16 encoded characters.
+     * @param destination The byte buffer to receive the decoded bytes.
+     * @return The number of bytes inserted into the byte buffer.
+     */
+    static public int decode(CharBuffer source, ByteBuffer destination) {
+        return alphabet.decode(source, destination);
+    }
+
+
     static private final String lookupTable = "0123456789ABCDEF";
 
-    static private void encodeByte(byte[] bytes, int byteIndex, StringBuilder result) {
-        int nibble = (bytes[byteIndex] & 0xF0) >>> 4;
-        result.append(lookupTable.charAt(nibble));
-        nibble = bytes[byteIndex] & 0x0F;
-        result.append(lookupTable.charAt(nibble));
+    // the generic alphabet used for buffer conversions
+    static final Alphabet alphabet = new Alphabet(lookupTable, false);
+
+    // the first and second characters of the encoding for each possible byte value
+    static private final char[] firstCharacters = new char[256];
+    static private final char[] secondCharacters = new char[256];
+
+    // the nibble value for each ASCII character, or -1 if it is not a base 16 character
+    static private final byte[] nibbles = new byte[128];
+
+    // the bulk kernels, if they are available
+    static private final Kernels kernels = Kernels.instance;
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            firstCharacters[b] = lookupTable.charAt(b >>> 4);
+            secondCharacters[b] = lookupTable.charAt(b & 0x0F);
+        }
+        Arrays.fill(nibbles, (byte) -1);
+        for (int i = 0; i < lookupTable.length(); i++) {
+            nibbles[lookupTable.charAt(i)] = (byte) i;
+        }
+    }
+
+
+    static int encodeBytes(byte[] bytes, int offset, int length, char[] chars, int index) {
+        int end = offset + length;
+        int i = offset;
+        if (kernels != null) {
+            i += kernels.encodeBase16(bytes, offset, length, chars, index);
+            index += (i - offset) * 2;
+        }
+        for (; i < end; i++) {
+            int b = bytes[i] & 0xFF;
+            chars[index++] = firstCharacters[b];
+            chars[index++] = secondCharacters[b];
+        }
+        return index;
+    }
+
+
+    static int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index, boolean strict) {
+        return decodeCharacters(string, offset, length, bytes, index, strict, false);
+    }
+
+
+    // the characters are left out of any error message when decoding in place, since by then
+    // they have been partly overwritten by the decoded bytes
+    static private int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index,
+            boolean strict, boolean inPlace) {
+        int end = offset + length;
+        int i = offset;
+        int firstNibble = -1;  // the first nibble of a partially decoded byte
+        while (i < end) {
+            if (firstNibble < 0 && end - i >= 2) {
+                // decode a whole byte at a time while there is no white space
+                int first = decodeCharacter(string.charAt(i));
+                int second = decodeCharacter(string.charAt(i + 1));
+                if ((first | second) >= 0) {
+                    bytes[index++] = (byte) ((first << 4) | second);
+                    i += 2;
+                    continue;
+                }
+            }
+            char character = string.charAt(i++);
+            int nibble = decodeCharacter(character);
+            if (nibble < 0) {
+                if (!strict && Alphabet.isWhiteSpace(character)) continue;  // skip any white space
+                throw invalidCharacter(string, i - 1, inPlace);
+            }
+            if (firstNibble < 0) {
+                firstNibble = nibble;
+            } else {
+                bytes[index++] = (byte) ((firstNibble << 4) | nibble);
+                firstNibble = -1;
+            }
+        }
+        if (firstNibble >= 0) throw incompleteBlock(string, inPlace);
+        return index;
+    }
+
+
+    static private NumberFormatException invalidCharacter(CharSequence string, int i, boolean inPlace) {
+        if (inPlace) return new NumberFormatException("Attempted to decode a character that is not base 16 at offset " + i + ".");
+        return new NumberFormatException("Attempted to decode a string that is not base 16: " + string);
+    }
+
+
+    static private NumberFormatException incompleteBlock(CharSequence string, boolean inPlace) {
+        if (inPlace) return new NumberFormatException("Attempted to decode an odd number of base 16 characters.");
+        return new NumberFormatException("Attempted to decode a string that is not base 16: " + string);
+    }
+
+
+    static int decodeCharacters(char[] chars, int offset, int length, byte[] bytes, int index) {
+        if (length % 2 != 0) throw new NumberFormatException("Attempted to decode an odd number of base 16 characters.");
+        int end = offset + length;
+        int i = offset;
+        if (kernels != null) {
+            i += kernels.decodeBase16(chars, offset, length, bytes, index);
+            index += (i - offset) / 2;
+        }
+        for (; i < end; i += 2) {
+            int firstNibble = decodeCharacter(chars[i]);
+            int secondNibble = decodeCharacter(chars[i + 1]);
+            if ((firstNibble | secondNibble) < 0) throw new NumberFormatException("Attempted to decode a character that is not base 16.");
+            bytes[index++] = (byte) ((firstNibble << 4) | secondNibble);
+        }
+        return index;
+    }
+
+
+    static private byte[] decodeSequence(CharSequence string, boolean strict) {
+        return decodeSequence(string, strict, ParallelCoding.threshold);
+    }
+
+
+    /**
+     * This function decodes a base 16 encoded character sequence.  Sequences that are at least
+     * as long as the specified threshold are decoded in parallel.
+     *
+     * @param string The base 16 encoded character sequence.
+     * @param strict Whether or not white space should be rejected.
+     * @param threshold The number of characters at or above which the sequence is decoded in parallel.
+     * @return The decoded byte array.
+     */
+    static byte[] decodeSequence(CharSequence string, boolean strict, int threshold) {
+        if (string.length() >= threshold) {
+            return ParallelCoding.decode(string, 2, 1, Base16Utils::decodeCharacters, strict, 0);
+        }
+        int length = strict ? string.length() : Alphabet.countCharacters(string);
+        if (length % 2 != 0) throw new NumberFormatException("Attempted to decode a string that is not base 16: " + string);
+        byte[] bytes = new byte[length / 2];
+        int i = 0;
+        if (kernels != null && length == string.length()) {
+            // let the kernels decode the leading whole blocks of a compact string
+            i = kernels.decodeBase16(string, 0, length, bytes, 0);
+        }
+        decodeCharacters(string, i, string.length() - i, bytes, i / 2, strict);
+        return bytes;
+    }
+
+
+    // returns the number of bytes that a string decodes to, or (-(i + 1)) where i is the index
+    // of the first invalid character (or the length of the string if a block is incomplete)
+    static private int scanCharacters(CharSequence string) {
+        int length = string.length();
+        int count = 0;  // the number of characters that are not white space
+        for (int i = 0; i < length; i++) {
+            char character = string.charAt(i);
+            if (decodeCharacter(character) >= 0) {
+                count++;
+            } else if (!Alphabet.isWhiteSpace(character)) {
+                return -1 - i;
+            }
+        }
+        if (count % 2 != 0) return -1 - length;  // an incomplete byte
+        return count / 2;
+    }
+
+
+    static private int decodeCharacter(char character) {
+        return character < 128 ? nibbles[character] : -1;
     }
 
 
-    static private void decodeByte(String string, int byteIndex, byte[] bytes) {
-        char firstCharacter = string.charAt(byteIndex * 2);
-        int firstNibble = lookupTable.indexOf((int) firstCharacter);
-        if (firstNibble < 0) throw new NumberFormatException("Attempted to decode a string that is not base 16: " + string);
-        char secondCharacter = string.charAt(byteIndex * 2 + 1);
-        int secondNibble = lookupTable.indexOf((int) secondCharacter);
-        if (secondNibble < 0) throw new NumberFormatException("Attempted to decode a string that is not base 16: " + string);
-        bytes[byteIndex] = (byte) ((firstNibble << 4) | secondNibble);
+    static private final class Base16Codec implements Codec {
+
+        @Override
+        public int encodedLength(int length) {
+            return length * 2;
+        }
+
+
+        @Override
+        public int decodedLength(char[] source, int offset, int length) {
+            return length / 2;
+        }
+
+
+        @Override
+        public int encode(byte[] source, int offset, int length, char[] destination, int index) {
+            return encodeBytes(source, offset, length, destination, index) - index;
+        }
+
+
+        @Override
+        public int decode(char[] source, int offset, int length, byte[] destination, int index) {
+            return decodeCharacters(source, offset, length, destination, index) - index;
+        }
+
     }
 
 
@@ -0,0 +1,106 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * This class implements a reusable base 32 decoder that accepts the encoded characters in
+ * arbitrary fragments, for example as they arrive on a network connection.  The characters of a
+ * partial 8 character block are held between calls, and the bytes of each block are written to
+ * the sink as soon as the block is complete.  Any white space in the fragments is skipped.  Once
+ * the last fragment has been decoded the <code>finish</code> method must be called to decode the
+ * final partial block, after which the decoder may be used again.  A decoder is not thread safe,
+ * but since it allocates nothing after it is created, one may be pooled per connection.
+ *
+ * @author Derk Norton
+ */
+public final class Base32Decoder {
+
+    private final byte[] bytes = new byte[1280];  // the decoded bytes waiting to be written
+    private int size;  // the number of bytes waiting to be written
+    private long block;  // the chunks of the current partial block
+    private int count;  // the number of characters in the current partial block
+
+
+    /**
+     * This method decodes the next fragment of base 32 characters and writes the bytes of any
+     * completed blocks to the sink.  If an invalid character is found the decoder should be
+     * reset before it is used again.
+     *
+     * @param fragment The next fragment of base 32 characters.
+     * @param sink The output stream to which the decoded bytes are written.
+     * @throws IOException The sink could not be written to.
+     * @throws NumberFormatException The fragment contains a character that is not base 32.
+     */
+    public void decode(CharSequence fragment, OutputStream sink) throws IOException {
+        int length = fragment.length();
+        for (int i = 0; i < length; i++) {
+            char character = fragment.charAt(i);
+            int chunk = Base32Utils.decodeCharacter(character);
+            if (chunk < 0) {
+                if (Alphabet.isWhiteSpace(character)) continue;  // skip any white space
+                throw new NumberFormatException("Attempted to decode a fragment that is not base 32: " + fragment);
+            }
+            block = (block << 5) | chunk;
+            if (++count == 8) {
+                if (size > bytes.length - 5) flush(sink);
+                size = Base32Utils.decodeBlock(block, 5, bytes, size);
+                block = 0;
+                count = 0;
+            }
+        }
+        flush(sink);
+    }
+
+
+    /**
+     * This method decodes the final partial block of characters, writes its bytes to the sink,
+     * and resets the decoder so that it can be used again.
+     *
+     * @param sink The output stream to which the decoded bytes are written.
+     * @throws IOException The sink could not be written to.
+     * @throws NumberFormatException The number of characters that were decoded is not valid.
+     */
+    public void finish(OutputStream sink) throws IOException {
+        if (count == 1 || count == 3 || count == 6) {
+            // no number of bytes encodes to these lengths
+            reset();
+            throw new NumberFormatException("Attempted to decode an invalid number of base 32 characters.");
+        }
+        if (count > 0) {
+            // same as normal, but drop the bits that don't fill a whole byte
+            size = Base32Utils.decodeBlock(block << (8 - count) * 5, count * 5 / 8, bytes, size);
+        }
+        flush(sink);
+        reset();
+    }
+
+
+    /**
+     * This method discards any partial block of characters so that the decoder can be used again.
+     */
+    public void reset() {
+        size = 0;
+        block = 0;
+        count = 0;
+    }
+
+
+    private void flush(OutputStream sink) throws IOException {
+        if (size > 0) {
+            sink.write(bytes, 0, size);
+            size = 0;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.IOException;
+
+
+/**
+ * This class implements a reusable base 32 encoder that accepts the bytes to be encoded in
+ * arbitrary fragments.  The bytes of a partial 5 byte block are held between calls, and the
+ * characters of each block are appended to the sink as soon as the block is complete.  The
+ * characters are not formatted into lines.  Once the last fragment has been encoded the
+ * <code>finish</code> method must be called to encode the final partial block, after which the
+ * encoder may be used again.  An encoder is not thread safe, but since it allocates nothing after
+ * it is created, one may be pooled per connection.
+ *
+ * @author Derk Norton
+ */
+public final class Base32Encoder {
+
+    private final char[] chars = new char[1024];  // the encoded characters waiting to be appended
+    private final byte[] block = new byte[5];  // the bytes of the current partial block
+    private int size;  // the number of characters waiting to be appended
+    private int count;  // the number of bytes in the current partial block
+
+
+    /**
+     * This method encodes the next fragment of bytes and appends the characters of any completed
+     * blocks to the sink.
+     *
+     * @param bytes The next fragment of bytes.
+     * @param sink The appendable to which the base 32 characters are appended.
+     * @throws IOException The sink could not be appended to.
+     */
+    public void encode(byte[] bytes, Appendable sink) throws IOException {
+        encode(bytes, 0, bytes.length, sink);
+    }
+
+
+    /**
+     * This method encodes the next fragment of bytes from a range of a byte array and appends
+     * the characters of any completed blocks to the sink.
+     *
+     * @param bytes The byte array containing the next fragment.
+     * @param offset The index of the first byte to be encoded.
+     * @param length The number of bytes to be encoded.
+     * @param sink The appendable to which the base 32 characters are appended.
+     * @throws IOException The sink could not be appended to.
+     */
+    public void encode(byte[] bytes, int offset, int length, Appendable sink) throws IOException {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) throw new IndexOutOfBoundsException();
+        int end = offset + length;
+        int i = offset;
+        while (count > 0 && i < end) {
+            // complete the partial block from the previous fragment
+            block[count++] = bytes[i++];
+            if (count == 5) {
+                if (size > chars.length - 8) flush(sink);
+                size = Base32Utils.encodeBytes(block, 0, 5, chars, size);
+                count = 0;
+            }
+        }
+        while (end - i >= 5) {
+            // encode the whole blocks directly from the caller's array
+            int n = Math.min((end - i) / 5, (chars.length - size) / 8) * 5;
+            if (n == 0) {
+                flush(sink);
+                continue;
+            }
+            size = Base32Utils.encodeBytes(bytes, i, n, chars, size);
+            i += n;
+        }
+        while (i < end) {
+            // save the rest for the next fragment
+            block[count++] = bytes[i++];
+        }
+        flush(sink);
+    }
+
+
+    /**
+     * This method encodes the final partial block of bytes, appends its characters to the sink,
+     * and resets the encoder so that it can be used again.
+     *
+     * @param sink The appendable to which the base 32 characters are appended.
+     * @throws IOException The sink could not be appended to.
+     */
+    public void finish(Appendable sink) throws IOException {
+        if (count > 0) {
+            if (size > chars.length - 8) flush(sink);
+            size = Base32Utils.encodeBytes(block, 0, count, chars, size);
+        }
+        flush(sink);
+        reset();
+    }
+
+
+    /**
+     * This method discards any partial block of bytes so that the encoder can be used again.
+     */
+    public void reset() {
+        size = 0;
+        count = 0;
+    }
+
+
+    private void flush(Appendable sink) throws IOException {
+        if (size > 0) {
+            LineFormatter.append(sink, chars, 0, size);
+            size = 0;
+        }
+    }
+
+}
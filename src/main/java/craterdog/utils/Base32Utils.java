@@ -9,6 +9,13 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
 /**
  * This utility class provides functions for encoding and decoding byte arrays
  * using base 32.  The character set used for the encoding includes the following
@@ -18,6 +25,18 @@ package craterdog.utils;
  */
 public final class Base32Utils {
 
+    /**
+     * The codec for base 32, for code that chooses its number base at runtime.
+     */
+    static public final Codec codec = new Base32Codec();
+
+    /**
+     * A comparator for keys encoded using the <code>encodeKey</code> function that orders them
+     * the same way that <code>ByteUtils.compareUnsigned</code> orders the original keys.
+     */
+    static public final Comparator<CharSequence> keyComparator = Base32Utils::compareKeys;
+
+
     /**
      * This function encodes a byte array using base 32 with no indentation of new lines.
      *
@@ -25,7 +44,7 @@ public final class Base32Utils {
      * @return The base 32 encoded string.
      */
     static public String encode(byte[] bytes) {
-        return encode(bytes, null);
+        return encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH);
     }
 
 
@@ -37,180 +56,481 @@ public final class Base32Utils {
      * @return The base 32 encoded string.
      */
     static public String encode(byte[] bytes, String indentation) {
-        StringBuilder result = new StringBuilder();
-        int length = bytes.length;
-        if (length == 0) return "";  // empty byte array
-        if (indentation != null) result.append(indentation);
-        encodeBytes(bytes[0], bytes[0], 0, result);
-        for (int i = 1; i < length; i++) {
-            if (i % 50 == 0) {
-                // format to indented 80 character blocks
-                result.append("\n");
-                if (indentation != null) result.append(indentation);
-            }
-            encodeBytes(bytes[i - 1], bytes[i], i, result);
-        }
-        encodeLastByte(bytes[length - 1], length - 1, result);
-        return result.toString();
+        return encode(bytes, indentation, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 32 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation).
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 32 encoded string.
+     */
+    static public String encode(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.format(codec, 5, bytes, indentation, lineWidth);
     }
 
 
     /**
-     * This function decodes a base 32 string into its corresponding byte array.
+     * This function encodes a byte array using base 32 with no indentation of new lines and
+     * appends the encoded characters to an appendable (e.g. a string builder, writer or character
+     * buffer) rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param destination The appendable to receive the base 32 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, Appendable destination) throws IOException {
+        encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 32 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * appends the encoded characters to an appendable rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The appendable to receive the base 32 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, String indentation, int lineWidth, Appendable destination) throws IOException {
+        LineFormatter.format(codec, 5, bytes, indentation, lineWidth, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 32 with no indentation of new lines and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @return The base 32 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes) {
+        return encodeToAscii(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 32 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 32 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes, String indentation, int lineWidth) {
+        return LineFormatter.formatAscii(codec, 5, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 32 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * inserts the encoded characters into a byte buffer as ASCII characters.  The buffer may be a
+     * heap or direct buffer, and its position is advanced past the inserted characters.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The byte buffer to receive the base 32 encoded ASCII characters.
+     * @return The number of characters inserted into the byte buffer.
+     * @throws java.nio.BufferOverflowException The byte buffer does not have room for all of the
+     * characters, in which case nothing is inserted.
+     */
+    static public int encodeToAscii(byte[] bytes, String indentation, int lineWidth, ByteBuffer destination) {
+        return LineFormatter.formatAscii(codec, 5, bytes, indentation, lineWidth, destination);
+    }
+
+
+    /**
+     * This function decodes a base 32 string into its corresponding byte array.  Any white
+     * space in the string (e.g. line breaks and indentation) is skipped.
      *
      * @param base32 The base 32 encoded string.
      * @return The corresponding byte array.
      */
     static public byte[] decode(String base32) {
-        String string = base32.replaceAll("\\s", "");  // remove all white space
-        int length = string.length();
-        byte[] bytes = new byte[(int) (length * 5.0 / 8.0)];
-        for (int i = 0; i < length - 1; i++) {
-            char character = string.charAt(i);
-            byte chunk = (byte) lookupTable.indexOf((int) character);
-            if (chunk < 0) throw new NumberFormatException("Attempted to decode a string that is not base 32: " + string);
-            decodeCharacter(chunk, i, bytes, 0);
+        return decodeSequence(base32, false);
+    }
+
+
+    /**
+     * This function decodes a compact base 32 string, one that contains no white space at all,
+     * into its corresponding byte array.  A string containing any white space is rejected.
+     *
+     * @param base32 The compact base 32 encoded string.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeStrict(String base32) {
+        return decodeSequence(base32, true);
+    }
+
+
+    /**
+     * This function determines whether or not a string is valid base 32, meaning that the
+     * <code>decode</code> function would accept it.  Any white space in the string is skipped.
+     * No memory is allocated whether or not the string is valid.
+     *
+     * @param base32 The string to be checked.
+     * @return Whether or not the string is valid base 32.
+     */
+    static public boolean isValid(CharSequence base32) {
+        return scanCharacters(base32) >= 0;
+    }
+
+
+    /**
+     * This function determines the number of bytes that a base 32 string decodes to without
+     * decoding it.  Any white space in the string is skipped.  No memory is allocated whether or
+     * not the string is valid.
+     *
+     * @param base32 The base 32 encoded string.
+     * @return The number of bytes that the string decodes to, or -1 if it is not valid base 32.
+     */
+    static public int decodedLength(CharSequence base32) {
+        int length = scanCharacters(base32);
+        return length < 0 ? -1 : length;
+    }
+
+
+    /**
+     * This function decodes a base 32 string into an existing byte array, reporting rather than
+     * throwing an exception if the string is not valid.  Any white space in the string is
+     * skipped.  No memory is allocated whether or not the string is valid.  The byte array must
+     * have room for the number of bytes returned by the <code>decodedLength</code> function.
+     *
+     * @param base32 The base 32 encoded string.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of bytes decoded, or if the string is not valid, <code>(-(i + 1))</code>
+     * where <code>i</code> is the index of the first invalid character, or the length of the
+     * string if it ends with an incomplete block of characters.
+     */
+    static public int tryDecode(CharSequence base32, byte[] bytes, int index) {
+        int length = scanCharacters(base32);
+        if (length < 0) return length;
+        decodeCharacters(base32, 0, base32.length(), bytes, index, false);
+        return length;
+    }
+
+
+    /**
+     * This function decodes base 32 ASCII characters into their corresponding byte array without
+     * first converting them into a string.  Any white space (e.g. line breaks and indentation) is
+     * skipped.
+     *
+     * @param ascii The base 32 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii) {
+        return decodeFromAscii(ascii, 0, ascii.length);
+    }
+
+
+    /**
+     * This function decodes a range of base 32 ASCII characters into their corresponding byte
+     * array without first converting them into a string.  Any white space (e.g. line breaks and
+     * indentation) is skipped.
+     *
+     * @param ascii The byte array containing the base 32 encoded ASCII characters.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters to be decoded.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii, int offset, int length) {
+        return decodeFromAscii(ByteBuffer.wrap(ascii, offset, length));
+    }
+
+
+    /**
+     * This function decodes the remaining base 32 ASCII characters in a byte buffer into their
+     * corresponding byte array without first converting them into a string.  Any white space
+     * (e.g. line breaks and indentation) is skipped.  The buffer may be a heap or direct buffer,
+     * and its position is advanced to its limit.
+     *
+     * @param source The byte buffer containing the base 32 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(ByteBuffer source) {
+        byte[] bytes = decodeSequence(new AsciiSequence(source), false);
+        source.position(source.limit());
+        return bytes;
+    }
+
+
+    /**
+     * This function encodes a key using base 32 without any formatting.  The characters in the
+     * base 32 alphabet are in ascending ASCII order and the final partial block is padded with 0
+     * bits, so the encoded keys sort the same way as the original keys when they are compared
+     * as unsigned bytes (e.g. big endian keys from <code>ByteUtils.longToBytes</code> sort as
+     * unsigned numbers).  Keys of the same length always encode to the same number of characters.
+     *
+     * @param key The key to be encoded.
+     * @return The base 32 encoded key.
+     */
+    static public String encodeKey(byte[] key) {
+        char[] chars = new char[codec.encodedLength(key.length)];
+        encodeBytes(key, 0, key.length, chars, 0);
+        return new String(chars);
+    }
+
+
+    /**
+     * This function compares two keys that were encoded using the <code>encodeKey</code>
+     * function without decoding them.  The result is the same as comparing the original keys
+     * using <code>ByteUtils.compareUnsigned</code>.
+     *
+     * @param first The first base 32 encoded key.
+     * @param second The second base 32 encoded key.
+     * @return The signum result of the comparison.
+     */
+    static public int compareKeys(CharSequence first, CharSequence second) {
+        int shorterLength = Math.min(first.length(), second.length());
+        for (int i = 0; i < shorterLength; i++) {
+            int result = first.charAt(i) - second.charAt(i);
+            if (result != 0) return Integer.signum(result);
+        }
+        return Integer.signum(first.length() - second.length());
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 32 and inserts the
+     * resulting characters into a character buffer, with no formatting of new lines.  Either
+     * buffer may be a heap or direct buffer.  The positions of both buffers are advanced past the
+     * bytes consumed and the characters produced, so if the character buffer fills up this function
+     * may be called again, after draining it, to encode the rest of the bytes.  The byte buffer is
+     * assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The character buffer to receive the base 32 encoded characters.
+     * @return The number of characters inserted into the character buffer.
+     */
+    static public int encode(ByteBuffer source, CharBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 32 and inserts the
+     * resulting characters into another byte buffer as ASCII characters, with no formatting of new
+     * lines.  Either buffer may be a heap or direct buffer.  The positions of both buffers are
+     * advanced past the bytes consumed and the characters produced, so if the destination buffer
+     * fills up this function may be called again, after draining it, to encode the rest of the
+     * bytes.  The source buffer is assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The byte buffer to receive the base 32 encoded ASCII characters.
+     * @return The number of characters inserted into the destination buffer.
+     */
+    static public int encode(ByteBuffer source, ByteBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function decodes the remaining characters in a character buffer containing base 32
+     * characters, with no formatting of new lines, and inserts the resulting bytes into a byte
+     * buffer.  Any character sequence may be decoded without copying it by wrapping it using
+     * <code>CharBuffer.wrap</code>.  The positions of both buffers are advanced past the characters
+     * consumed and the bytes produced, so if the byte buffer fills up this function may be called
+     * again, after draining it, to decode the rest of the characters.
+     *
+     * @param source The character buffer containing the base 32 encoded characters.
+     * @param destination The byte buffer to receive the decoded bytes.
+     * @return The number of bytes inserted into the byte buffer.
+     */
+    static public int decode(CharBuffer source, ByteBuffer destination) {
+        return alphabet.decode(source, destination);
+    }
+
+
+    // Each block of 5 bytes (40 bits) is encoded as 8 characters (5 bits each):
+    // byte:  00000111|11222223|33334444|45555566|66677777
+    // A final partial block is padded with 0 bits out to the end of its last
+    // character, and no padding characters are appended.  When decoding, any
+    // bits in the last character that do not complete a byte are dropped.
+    static int encodeBytes(byte[] bytes, int offset, int length, char[] chars, int index) {
+        int end = offset + length;
+        int i = offset;
+        while (end - i >= 5) {
+            long block = (bytes[i++] & 0xFFL) << 32
+                    | (bytes[i++] & 0xFFL) << 24
+                    | (bytes[i++] & 0xFFL) << 16
+                    | (bytes[i++] & 0xFFL) << 8
+                    | (bytes[i++] & 0xFFL);
+            chars[index++] = characters[(int) (block >>> 35) & 0x1F];
+            chars[index++] = characters[(int) (block >>> 30) & 0x1F];
+            chars[index++] = characters[(int) (block >>> 25) & 0x1F];
+            chars[index++] = characters[(int) (block >>> 20) & 0x1F];
+            chars[index++] = characters[(int) (block >>> 15) & 0x1F];
+            chars[index++] = characters[(int) (block >>> 10) & 0x1F];
+            chars[index++] = characters[(int) (block >>> 5) & 0x1F];
+            chars[index++] = characters[(int) block & 0x1F];
+        }
+        int remaining = end - i;
+        if (remaining > 0) {
+            // same as normal, but pad with 0's in the missing bytes
+            long block = 0;
+            for (int j = 0; j < 5; j++) {
+                block <<= 8;
+                if (j < remaining) block |= bytes[i++] & 0xFFL;
+            }
+            int count = (remaining * 8 + 4) / 5;
+            for (int shift = 35; count > 0; shift -= 5, count--) {
+                chars[index++] = characters[(int) (block >>> shift) & 0x1F];
+            }
+        }
+        return index;
+    }
+
+
+    static int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index, boolean strict) {
+        int end = offset + length;
+        int i = offset;
+        long block = 0;
+        int count = 0;  // the number of characters in a partially decoded block
+        while (i < end) {
+            if (count == 0 && end - i >= 8) {
+                // decode a whole block at a time while there is no white space
+                block = 0;
+                int check = 0;
+                for (int j = i; j < i + 8; j++) {
+                    int chunk = decodeCharacter(string.charAt(j));
+                    check |= chunk;
+                    block = (block << 5) | chunk;
+                }
+                if (check >= 0) {
+                    index = decodeBlock(block, 5, bytes, index);
+                    i += 8;
+                    continue;
+                }
+                block = 0;
+            }
+            char character = string.charAt(i++);
+            int chunk = decodeCharacter(character);
+            if (chunk < 0) {
+                if (!strict && Alphabet.isWhiteSpace(character)) continue;  // skip any white space
+                throw new NumberFormatException("Attempted to decode a string that is not base 32: " + string);
+            }
+            block = (block << 5) | chunk;
+            if (++count == 8) {
+                index = decodeBlock(block, 5, bytes, index);
+                block = 0;
+                count = 0;
+            }
         }
-        if (length > 0) {
-            char character = string.charAt(length - 1);
-            byte chunk = (byte) lookupTable.indexOf((int) character);
-            if (chunk < 0) throw new NumberFormatException("Attempted to decode a string that is not base 32: " + string);
-            decodeLastCharacter(chunk, length - 1, bytes, 0);
+        if (count == 1 || count == 3 || count == 6) {
+            // no number of bytes encodes to these lengths
+            throw new NumberFormatException("Attempted to decode a string that is not base 32: " + string);
         }
+        if (count > 0) {
+            // same as normal, but drop the bits that don't fill a whole byte
+            block <<= (8 - count) * 5;
+            index = decodeBlock(block, count * 5 / 8, bytes, index);
+        }
+        return index;
+    }
+
+
+    static int decodeCharacters(char[] chars, int offset, int length, byte[] bytes, int index) {
+        int end = offset + length;
+        int i = offset;
+        int check = 0;
+        while (end - i >= 8) {
+            long block = 0;
+            for (int j = 0; j < 8; j++) {
+                int chunk = decodeCharacter(chars[i++]);
+                check |= chunk;
+                block = (block << 5) | chunk;
+            }
+            index = decodeBlock(block, 5, bytes, index);
+        }
+        int remaining = end - i;
+        if (remaining == 1 || remaining == 3 || remaining == 6) {
+            // no number of bytes encodes to these lengths
+            throw new NumberFormatException("Attempted to decode an invalid number of base 32 characters: " + length);
+        }
+        if (remaining > 0) {
+            // same as normal, but drop the bits that don't fill a whole byte
+            long block = 0;
+            for (int j = 0; j < remaining; j++) {
+                int chunk = decodeCharacter(chars[i++]);
+                check |= chunk;
+                block = (block << 5) | chunk;
+            }
+            block <<= (8 - remaining) * 5;
+            index = decodeBlock(block, remaining * 5 / 8, bytes, index);
+        }
+        if (check < 0) throw new NumberFormatException("Attempted to decode a character that is not base 32.");
+        return index;
+    }
+
+
+    static int decodeBlock(long block, int count, byte[] bytes, int index) {
+        for (int shift = 32; count > 0; shift -= 8, count--) {
+            bytes[index++] = (byte) (block >>> shift);
+        }
+        return index;
+    }
+
+
+    static private byte[] decodeSequence(CharSequence string, boolean strict) {
+        return decodeSequence(string, strict, ParallelCoding.threshold);
+    }
+
+
+    /**
+     * This function decodes a base 32 encoded character sequence.  Sequences that are at least
+     * as long as the specified threshold are decoded in parallel.
+     *
+     * @param string The base 32 encoded character sequence.
+     * @param strict Whether or not white space should be rejected.
+     * @param threshold The number of characters at or above which the sequence is decoded in parallel.
+     * @return The decoded byte array.
+     */
+    static byte[] decodeSequence(CharSequence string, boolean strict, int threshold) {
+        if (string.length() >= threshold) {
+            return ParallelCoding.decode(string, 8, 5, Base32Utils::decodeCharacters, strict, 0);
+        }
+        int length = strict ? string.length() : Alphabet.countCharacters(string);
+        byte[] bytes = new byte[(int) (length * 5L / 8)];
+        decodeCharacters(string, 0, string.length(), bytes, 0, strict);
         return bytes;
     }
 
 
-    // offset:    0        1        2        3        4        0
-    // byte:  00000111|11222223|33334444|45555566|66677777|...
-    // mask:   F8  07  C0 3E  01 F0  0F 80  7C 03  E0  1F   F8  07
-    static private void encodeBytes(byte previous, byte current, int byteIndex, StringBuilder output) {
-        int chunk;
-        int offset = byteIndex % 5;
-        switch (offset) {
-            case 0:
-                chunk = ((current & 0xF8) >>> 3);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 1:
-                chunk = (((previous & 0x07) << 2) | ((current & 0xC0) >>> 6));
-                output.append(lookupTable.charAt(chunk));
-                chunk = ((current & 0x3E) >>> 1);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 2:
-                chunk = (((previous & 0x01) << 4) | ((current & 0xF0) >>> 4));
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 3:
-                chunk = (((previous & 0x0F) << 1) | ((current & 0x80) >>> 7));
-                output.append(lookupTable.charAt(chunk));
-                chunk = ((current & 0x7C) >>> 2);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 4:
-                chunk = (((previous & 0x03) << 3) | ((current & 0xE0) >>> 5));
-                output.append(lookupTable.charAt(chunk));
-                chunk = (current & 0x1F);
-                output.append(lookupTable.charAt(chunk));
-                break;
-        }
-    }
-
-
-    // same as normal, but pad with 0's in "next" byte
-    // case:      0        1        2        3        4
-    // byte:  xxxxx111|00xxxxx3|00004444|0xxxxx66|00077777|...
-    // mask:   F8  07  C0 3E  01 F0  0F 80  7C 03  E0  1F
-    static private void encodeLastByte(byte last, int byteIndex, StringBuilder output) {
-        int chunk;
-        int offset = byteIndex % 5;
-        switch (offset) {
-            case 0:
-                chunk = ((last & 0x07) << 2);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 1:
-                chunk = ((last & 0x01) << 4);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 2:
-                chunk = ((last & 0x0F) << 1);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 3:
-                chunk = ((last & 0x03) << 3);
-                output.append(lookupTable.charAt(chunk));
-                break;
-            case 4:
-                break;
-        }
-    }
-
-
-    // offset:    0        1        2        3        4        0
-    // byte:  00000111|11222223|33334444|45555566|66677777|...
-    // mask:   F8  07  C0 3E  01 F0  0F 80  7C 03  E0  1F   F8  07
-    static private void decodeCharacter(byte chunk, int characterIndex, byte[] bytes, int index) {
-        int byteIndex = index + (characterIndex * 5) / 8;
-        int offset = characterIndex % 8;
-        switch (offset) {
-            case 0:
-                bytes[byteIndex] |= chunk << 3;
-                break;
-            case 1:
-                bytes[byteIndex] |= chunk >>> 2;
-                bytes[byteIndex + 1] |= chunk << 6;
-                break;
-            case 2:
-                bytes[byteIndex] |= chunk << 1;
-                break;
-            case 3:
-                bytes[byteIndex] |= chunk >>> 4;
-                bytes[byteIndex + 1] |= chunk << 4;
-                break;
-            case 4:
-                bytes[byteIndex] |= chunk >>> 1;
-                bytes[byteIndex + 1] |= chunk << 7;
-                break;
-            case 5:
-                bytes[byteIndex] |= chunk << 2;
-                break;
-            case 6:
-                bytes[byteIndex] |= chunk >>> 3;
-                bytes[byteIndex + 1] |= chunk << 5;
-                break;
-            case 7:
-                bytes[byteIndex] |= chunk;
-                break;
-        }
-    }
-
-
-    // same as normal, but pad with 0's in "next" byte
-    // case:      0        1        2        3        4
-    // byte:  xxxxx111|00xxxxx3|00004444|0xxxxx66|00077777|...
-    // mask:   F8  07  C0 3E  01 F0  0F 80  7C 03  E0  1F
-    static private void decodeLastCharacter(byte chunk, int characterIndex, byte[] bytes, int index) {
-        int byteIndex = index + (characterIndex * 5) / 8;
-        int offset = characterIndex % 8;
-        switch (offset) {
-            case 1:
-                bytes[byteIndex] |= chunk >>> 2;
-                break;
-            case 3:
-                bytes[byteIndex] |= chunk >>> 4;
-                break;
-            case 4:
-                bytes[byteIndex] |= chunk >>> 1;
-                break;
-            case 6:
-                bytes[byteIndex] |= chunk >>> 3;
-                break;
-            case 7:
-                bytes[byteIndex] |= chunk;
-                break;
+    // returns the number of bytes that a string decodes to, or (-(i + 1)) where i is the index
+    // of the first invalid character (or the length of the string if a block is incomplete)
+    static private int scanCharacters(CharSequence string) {
+        int length = string.length();
+        int count = 0;  // the number of characters that are not white space
+        for (int i = 0; i < length; i++) {
+            char character = string.charAt(i);
+            if (decodeCharacter(character) >= 0) {
+                count++;
+            } else if (!Alphabet.isWhiteSpace(character)) {
+                return -1 - i;
+            }
         }
+        int remainder = count % 8;
+        if (remainder == 1 || remainder == 3 || remainder == 6) return -1 - length;  // no number of bytes encodes to these lengths
+        return (int) (count * 5L / 8);
+    }
+
+
+    static int decodeCharacter(char character) {
+        return character < 128 ? chunks[character] : -1;
     }
 
 
@@ -219,6 +539,50 @@ public final class Base32Utils {
     // (potentially offensive) words from being generated
     static private final String lookupTable = "0123456789ABCDFGHJKLMNPQRSTVWXYZ";
 
+    // the generic alphabet used for buffer conversions
+    static final Alphabet alphabet = new Alphabet(lookupTable, false);
+
+    // the character for each 5 bit chunk value
+    static private final char[] characters = lookupTable.toCharArray();
+
+    // the 5 bit chunk value for each ASCII character, or -1 if it is not a base 32 character
+    static private final byte[] chunks = new byte[128];
+
+    static {
+        Arrays.fill(chunks, (byte) -1);
+        for (int i = 0; i < characters.length; i++) {
+            chunks[characters[i]] = (byte) i;
+        }
+    }
+
+
+    static private final class Base32Codec implements Codec {
+
+        @Override
+        public int encodedLength(int length) {
+            return (int) ((length * 8L + 4) / 5);
+        }
+
+
+        @Override
+        public int decodedLength(char[] source, int offset, int length) {
+            return (int) (length * 5L / 8);
+        }
+
+
+        @Override
+        public int encode(byte[] source, int offset, int length, char[] destination, int index) {
+            return encodeBytes(source, offset, length, destination, index) - index;
+        }
+
+
+        @Override
+        public int decode(char[] source, int offset, int length, byte[] destination, int index) {
+            return decodeCharacters(source, offset, length, destination, index) - index;
+        }
+
+    }
+
 
     private Base32Utils() {
     }
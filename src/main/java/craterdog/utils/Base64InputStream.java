@@ -0,0 +1,40 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.Reader;
+
+
+/**
+ * This class implements an input stream that reads base 64 encoded characters from a reader
+ * and returns the decoded bytes.  It accepts the output of the <code>Base64Utils.encode</code>
+ * function, including any line breaks and indentation, but the encoded characters need not all
+ * be in memory at the same time.
+ *
+ * @author Derk Norton
+ */
+public final class Base64InputStream extends DecodingInputStream {
+
+    /**
+     * This constructor creates a new base 64 input stream.
+     *
+     * @param reader The reader from which the base 64 characters are read.
+     */
+    public Base64InputStream(Reader reader) {
+        super(reader, 4, 3);
+    }
+
+
+    @Override
+    int decode(CharSequence characters, int offset, int length, byte[] bytes, int index) {
+        return Base64Utils.decodeCharacters(characters, offset, length, bytes, index, true);
+    }
+
+}
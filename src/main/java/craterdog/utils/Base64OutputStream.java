@@ -0,0 +1,64 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.Writer;
+
+
+/**
+ * This class implements an output stream that encodes the bytes written to it using base 64
+ * and writes the resulting characters to a writer.  The output is identical to that of the
+ * <code>Base64Utils.encode</code> function, but the bytes being encoded need not all be in
+ * memory at the same time.  The stream must be closed to encode any final partial block of bytes.
+ *
+ * @author Derk Norton
+ */
+public final class Base64OutputStream extends EncodingOutputStream {
+
+    /**
+     * This constructor creates a new base 64 output stream with no indentation of new lines.
+     *
+     * @param writer The writer to which the base 64 characters are written.
+     */
+    public Base64OutputStream(Writer writer) {
+        this(writer, null);
+    }
+
+
+    /**
+     * This constructor creates a new base 64 output stream with a specific indentation of new lines.
+     *
+     * @param writer The writer to which the base 64 characters are written.
+     * @param indentation The indentation string to be inserted before each new line.
+     */
+    public Base64OutputStream(Writer writer, String indentation) {
+        this(writer, indentation, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This constructor creates a new base 64 output stream with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation).
+     *
+     * @param writer The writer to which the base 64 characters are written.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     */
+    public Base64OutputStream(Writer writer, String indentation, int lineWidth) {
+        super(writer, indentation, lineWidth, 3, 4);
+    }
+
+
+    @Override
+    int encode(byte[] bytes, int offset, int length, char[] chars, int index) {
+        return Base64Utils.encodeBytes(bytes, offset, length, chars, index);
+    }
+
+}
@@ -9,18 +9,95 @@
  ************************************************************************/
 package craterdog.utils;
 
-import org.apache.commons.codec.binary.Base64;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 
 
 /**
  * This utility class provides functions for encoding and decoding byte arrays
  * using base 64.  The character set used for the encoding includes the following
- * characters: 0..9 a..z A..Z + /
+ * characters: A..Z a..z 0..9 + / (or - _ for the URL safe variants) and the '='
+ * padding character.
  *
  * @author Derk Norton
  */
 public class Base64Utils {
 
+    /**
+     * The codec for the standard variant of base 64, for code that chooses its number base at
+     * runtime.
+     */
+    static public final Codec codec = Variant.STANDARD;
+
+
+    /**
+     * This enumeration defines the supported variants of the base 64 encoding.  Each variant
+     * is also a codec for that variant.
+     */
+    public enum Variant implements Codec {
+
+        /**
+         * The standard encoding using the characters '+' and '/' with '=' padding.
+         */
+        STANDARD("+/", true),
+
+        /**
+         * The standard encoding using the characters '+' and '/' with no padding.
+         */
+        STANDARD_UNPADDED("+/", false),
+
+        /**
+         * The URL and filename safe encoding using the characters '-' and '_' with '=' padding.
+         */
+        URL_SAFE("-_", true),
+
+        /**
+         * The URL and filename safe encoding using the characters '-' and '_' with no padding.
+         */
+        URL_SAFE_UNPADDED("-_", false);
+
+        private final char[] characters;  // the character for each 6 bit chunk value
+        private final boolean padded;
+        final Alphabet alphabet;  // the generic alphabet used for transcoding
+
+        private Variant(String lastCharacters, boolean padded) {
+            this.characters = (lookupTable.substring(0, 62) + lastCharacters).toCharArray();
+            this.padded = padded;
+            this.alphabet = new Alphabet(lookupTable.substring(0, 62) + lastCharacters, padded);
+        }
+
+
+        @Override
+        public int encodedLength(int length) {
+            return padded ? (length + 2) / 3 * 4 : (int) ((length * 4L + 2) / 3);
+        }
+
+
+        @Override
+        public int decodedLength(char[] source, int offset, int length) {
+            int end = offset + length;
+            if (end > offset && source[end - 1] == '=') end--;  // ignore any padding
+            if (end > offset && source[end - 1] == '=') end--;
+            return (int) ((end - offset) * 3L / 4);
+        }
+
+
+        @Override
+        public int encode(byte[] source, int offset, int length, char[] destination, int index) {
+            return encodeBytes(source, offset, length, destination, index, this) - index;
+        }
+
+
+        @Override
+        public int decode(char[] source, int offset, int length, byte[] destination, int index) {
+            return decodeCharacters(source, offset, length, destination, index) - index;
+        }
+
+    }
+
+
     /**
      * This function encodes a byte array using base 64 with no indentation of new lines.
      *
@@ -28,7 +105,7 @@ public class Base64Utils {
      * @return The base 64 encoded string.
      */
     static public String encode(byte[] bytes) {
-        return encode(bytes, null);
+        return encode(bytes, null, Variant.STANDARD);
     }
 
 
@@ -39,39 +116,615 @@ public class Base64Utils {
      * @param indentation The indentation string to be inserted before each new line.
      * @return The base 64 encoded string.
      */
-    public static String encode(byte[] bytes, String indentation) {
-        int length = bytes.length;
-        if (length == 0) return "";  // empty byte array
-        String encoded = Base64.encodeBase64String(bytes).replaceAll("\\s", "");  // remove all white space
-        StringBuilder result = new StringBuilder();
-        if (indentation != null) result.append(indentation);
-        result.append(encoded.charAt(0));
-        for (int c = 1; c < encoded.length(); c++) {
-            if (c % 80 == 0) {
-                // format to indented 80 character blocks
-                result.append("\n");
-                if (indentation != null) result.append(indentation);
-            }
-            result.append(encoded.charAt(c));
-        }
-        return result.toString();
+    static public String encode(byte[] bytes, String indentation) {
+        return encode(bytes, indentation, Variant.STANDARD);
+    }
+
+
+    /**
+     * This function encodes a byte array using a specific variant of base 64 with no indentation
+     * of new lines.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param variant The variant of base 64 to be used.
+     * @return The base 64 encoded string.
+     */
+    static public String encode(byte[] bytes, Variant variant) {
+        return encode(bytes, null, variant);
+    }
+
+
+    /**
+     * This function encodes a byte array using a specific variant of base 64 with a specific
+     * indentation of new lines.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param variant The variant of base 64 to be used.
+     * @return The base 64 encoded string.
+     */
+    static public String encode(byte[] bytes, String indentation, Variant variant) {
+        return encode(bytes, indentation, LineFormatter.DEFAULT_LINE_WIDTH, variant);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 64 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation).
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @return The base 64 encoded string.
+     */
+    static public String encode(byte[] bytes, String indentation, int lineWidth) {
+        return encode(bytes, indentation, lineWidth, Variant.STANDARD);
+    }
+
+
+    /**
+     * This function encodes a byte array using a specific variant of base 64 with a specific
+     * indentation of new lines and a specific number of characters in each line (not counting
+     * the indentation).
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param variant The variant of base 64 to be used.
+     * @return The base 64 encoded string.
+     */
+    static public String encode(byte[] bytes, String indentation, int lineWidth, Variant variant) {
+        return LineFormatter.format(variant, 3, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 64 with no indentation of new lines and
+     * appends the encoded characters to an appendable (e.g. a string builder, writer or character
+     * buffer) rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param destination The appendable to receive the base 64 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, Appendable destination) throws IOException {
+        encode(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using base 64 with a specific indentation of new lines
+     * and a specific number of characters in each line (not counting the indentation), and
+     * appends the encoded characters to an appendable rather than returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param destination The appendable to receive the base 64 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, String indentation, int lineWidth, Appendable destination) throws IOException {
+        encode(bytes, indentation, lineWidth, Variant.STANDARD, destination);
+    }
+
+
+    /**
+     * This function encodes a byte array using a specific variant of base 64 with a specific
+     * indentation of new lines and a specific number of characters in each line (not counting
+     * the indentation), and appends the encoded characters to an appendable rather than
+     * returning them as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param variant The variant of base 64 to be used.
+     * @param destination The appendable to receive the base 64 encoded characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static public void encode(byte[] bytes, String indentation, int lineWidth, Variant variant,
+            Appendable destination) throws IOException {
+        LineFormatter.format(variant, 3, bytes, indentation, lineWidth, destination);
     }
 
 
     /**
-     * This function decodes a base 64 string into its corresponding byte array.
+     * This function encodes a byte array using base 64 with no indentation of new lines and
+     * returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @return The base 64 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes) {
+        return encodeToAscii(bytes, null, LineFormatter.DEFAULT_LINE_WIDTH, Variant.STANDARD);
+    }
+
+
+    /**
+     * This function encodes a byte array using a specific variant of base 64 with a specific
+     * indentation of new lines and a specific number of characters in each line (not counting
+     * the indentation), and returns the encoded characters as ASCII bytes rather than as a string.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param variant The variant of base 64 to be used.
+     * @return The base 64 encoded ASCII characters.
+     */
+    static public byte[] encodeToAscii(byte[] bytes, String indentation, int lineWidth, Variant variant) {
+        return LineFormatter.formatAscii(variant, 3, bytes, indentation, lineWidth);
+    }
+
+
+    /**
+     * This function encodes a byte array using a specific variant of base 64 with a specific
+     * indentation of new lines and a specific number of characters in each line (not counting
+     * the indentation), and inserts the encoded characters into a byte buffer as ASCII
+     * characters.  The buffer may be a heap or direct buffer, and its position is advanced past
+     * the inserted characters.
+     *
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string, containing only ASCII characters, to be
+     * inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line.
+     * @param variant The variant of base 64 to be used.
+     * @param destination The byte buffer to receive the base 64 encoded ASCII characters.
+     * @return The number of characters inserted into the byte buffer.
+     * @throws java.nio.BufferOverflowException The byte buffer does not have room for all of the
+     * characters, in which case nothing is inserted.
+     */
+    static public int encodeToAscii(byte[] bytes, String indentation, int lineWidth, Variant variant,
+            ByteBuffer destination) {
+        return LineFormatter.formatAscii(variant, 3, bytes, indentation, lineWidth, destination);
+    }
+
+
+    /**
+     * This function decodes a base 64 string into its corresponding byte array.  Strings
+     * encoded using any of the variants are accepted, with or without padding.  Any white
+     * space in the string (e.g. line breaks and indentation) is skipped.
      *
      * @param base64 The base 64 encoded string.
      * @return The corresponding byte array.
      */
-    public static byte[] decode(String base64) {
-        byte[] result = Base64.decodeBase64(base64);
-        return result;
+    static public byte[] decode(String base64) {
+        return decodeSequence(base64, false);
     }
 
 
-    private Base64Utils() {
+    /**
+     * This function decodes a compact base 64 string, one that contains no white space at all,
+     * into its corresponding byte array.  Strings encoded using any of the variants are
+     * accepted, with or without padding.  A string containing any white space is rejected.
+     *
+     * @param base64 The compact base 64 encoded string.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeStrict(String base64) {
+        return decodeSequence(base64, true);
+    }
+
+
+    /**
+     * This function determines whether or not a string is valid base 64, meaning that the
+     * <code>decode</code> function would accept it.  Any white space in the string is skipped.
+     * No memory is allocated whether or not the string is valid.
+     *
+     * @param base64 The string to be checked.
+     * @return Whether or not the string is valid base 64.
+     */
+    static public boolean isValid(CharSequence base64) {
+        return scanCharacters(base64) >= 0;
+    }
+
+
+    /**
+     * This function determines the number of bytes that a base 64 string decodes to without
+     * decoding it.  Any white space in the string is skipped.  No memory is allocated whether or
+     * not the string is valid.
+     *
+     * @param base64 The base 64 encoded string.
+     * @return The number of bytes that the string decodes to, or -1 if it is not valid base 64.
+     */
+    static public int decodedLength(CharSequence base64) {
+        int length = scanCharacters(base64);
+        return length < 0 ? -1 : length;
+    }
+
+
+    /**
+     * This function decodes a base 64 string into an existing byte array, reporting rather than
+     * throwing an exception if the string is not valid.  Any white space in the string is
+     * skipped.  No memory is allocated whether or not the string is valid.  The byte array must
+     * have room for the number of bytes returned by the <code>decodedLength</code> function.
+     *
+     * @param base64 The base 64 encoded string.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of bytes decoded, or if the string is not valid, <code>(-(i + 1))</code>
+     * where <code>i</code> is the index of the first invalid character, or the length of the
+     * string if it ends with an incomplete block of characters.
+     */
+    static public int tryDecode(CharSequence base64, byte[] bytes, int index) {
+        int length = scanCharacters(base64);
+        if (length < 0) return length;
+        decodeCharacters(base64, 0, base64.length(), bytes, index, false);
+        return length;
+    }
+
+
+    /**
+     * This function decodes base 64 ASCII characters into their corresponding byte array without
+     * first converting them into a string.  Any white space (e.g. line breaks and indentation) is
+     * skipped.
+     *
+     * @param ascii The base 64 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii) {
+        return decodeFromAscii(ascii, 0, ascii.length);
+    }
+
+
+    /**
+     * This function decodes a range of base 64 ASCII characters into their corresponding byte
+     * array without first converting them into a string.  Any white space (e.g. line breaks and
+     * indentation) is skipped.
+     *
+     * @param ascii The byte array containing the base 64 encoded ASCII characters.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters to be decoded.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(byte[] ascii, int offset, int length) {
+        return decodeFromAscii(ByteBuffer.wrap(ascii, offset, length));
+    }
+
+
+    /**
+     * This function decodes the remaining base 64 ASCII characters in a byte buffer into their
+     * corresponding byte array without first converting them into a string.  Any white space
+     * (e.g. line breaks and indentation) is skipped.  The buffer may be a heap or direct buffer,
+     * and its position is advanced to its limit.
+     *
+     * @param source The byte buffer containing the base 64 encoded ASCII characters.
+     * @return The corresponding byte array.
+     */
+    static public byte[] decodeFromAscii(ByteBuffer source) {
+        byte[] bytes = decodeSequence(new AsciiSequence(source), false);
+        source.position(source.limit());
+        return bytes;
+    }
+
+
+    /**
+     * This function decodes a range of base 64 ASCII characters in place, overwriting the
+     * beginning of the range with the decoded bytes.  The decoded bytes are always fewer than the
+     * characters, so no other buffer is needed.  Any white space and padding is skipped.  If the characters
+     * are not valid base 64 the contents of the range are undefined, and the exception reports
+     * the offset of the first invalid character rather than the characters themselves.
+     *
+     * @param ascii The byte array containing the base 64 encoded ASCII characters.
+     * @param offset The index of the first character to be decoded, and of the first decoded byte.
+     * @param length The number of characters to be decoded.
+     * @return The number of decoded bytes.
+     */
+    static public int decodeInPlace(byte[] ascii, int offset, int length) {
+        if (offset < 0 || length < 0 || length > ascii.length - offset) throw new IndexOutOfBoundsException();
+        // each byte is written only after all of the characters that encode it have been read, and
+        // the characters are indexed by their position in the array so errors can report offsets
+        CharSequence characters = new AsciiSequence(ByteBuffer.wrap(ascii, 0, offset + length));
+        return decodeCharacters(characters, offset, length, ascii, offset, false, true) - offset;
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 64 and inserts the
+     * resulting characters into a character buffer, with no formatting of new lines.  Either
+     * buffer may be a heap or direct buffer.  The positions of both buffers are advanced past the
+     * bytes consumed and the characters produced, so if the character buffer fills up this function
+     * may be called again, after draining it, to encode the rest of the bytes.  The byte buffer is
+     * assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The character buffer to receive the base 64 encoded characters.
+     * @return The number of characters inserted into the character buffer.
+     */
+    static public int encode(ByteBuffer source, CharBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function encodes the remaining bytes in a byte buffer using base 64 and inserts the
+     * resulting characters into another byte buffer as ASCII characters, with no formatting of new
+     * lines.  Either buffer may be a heap or direct buffer.  The positions of both buffers are
+     * advanced past the bytes consumed and the characters produced, so if the destination buffer
+     * fills up this function may be called again, after draining it, to encode the rest of the
+     * bytes.  The source buffer is assumed to hold all of the remaining bytes to be encoded.
+     *
+     * @param source The byte buffer containing the bytes to be encoded.
+     * @param destination The byte buffer to receive the base 64 encoded ASCII characters.
+     * @return The number of characters inserted into the destination buffer.
+     */
+    static public int encode(ByteBuffer source, ByteBuffer destination) {
+        return alphabet.encode(source, destination);
+    }
+
+
+    /**
+     * This function decodes the remaining characters in a character buffer containing base 64
+     * characters, with no formatting of new lines, and inserts the resulting bytes into a byte
+     * buffer.  Any character sequence may be decoded without copying it by wrapping it using
+     * <code>CharBuffer.wrap</code>.  The positions of both buffers are advanced past the characters
+     * consumed and the bytes produced, so if the byte buffer fills up this function may be called
+     * again, after draining it, to decode the rest of the characters.
+     *
+     * @param source The character buffer containing the base 64 encoded characters.
+     * @param destination The byte buffer to receive the decoded bytes.
+     * @return The number of bytes inserted into the byte buffer.
+     */
+    static public int decode(CharBuffer source, ByteBuffer destination) {
+        return alphabet.decode(source, destination);
+    }
+
+
+    // Each block of 3 bytes (24 bits) is encoded as 4 characters (6 bits each):
+    // byte:  00000011|11112222|22333333
+    // A final partial block is padded with 0 bits out to the end of its last
+    // character, and then with '=' characters out to a full block of 4 characters
+    // if the variant is padded.
+    static int encodeBytes(byte[] bytes, int offset, int length, char[] chars, int index) {
+        return encodeBytes(bytes, offset, length, chars, index, Variant.STANDARD);
+    }
+
+
+    static int encodeBytes(byte[] bytes, int offset, int length, char[] chars, int index, Variant variant) {
+        char[] characters = variant.characters;
+        int end = offset + length;
+        int i = offset;
+        if (kernels != null) {
+            i += kernels.encodeBase64(bytes, offset, length, chars, index, characters);
+            index += (i - offset) / 3 * 4;
+        }
+        while (end - i >= 3) {
+            int block = (bytes[i++] & 0xFF) << 16 | (bytes[i++] & 0xFF) << 8 | (bytes[i++] & 0xFF);
+            chars[index++] = characters[block >>> 18];
+            chars[index++] = characters[(block >>> 12) & 0x3F];
+            chars[index++] = characters[(block >>> 6) & 0x3F];
+            chars[index++] = characters[block & 0x3F];
+        }
+        int remaining = end - i;
+        if (remaining > 0) {
+            // same as normal, but pad with 0's in the missing bytes
+            int block = (bytes[i++] & 0xFF) << 16;
+            if (remaining == 2) block |= (bytes[i] & 0xFF) << 8;
+            chars[index++] = characters[block >>> 18];
+            chars[index++] = characters[(block >>> 12) & 0x3F];
+            if (remaining == 2) chars[index++] = characters[(block >>> 6) & 0x3F];
+            if (variant.padded) {
+                if (remaining == 1) chars[index++] = '=';
+                chars[index++] = '=';
+            }
+        }
+        return index;
+    }
+
+
+    static int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index, boolean strict) {
+        return decodeCharacters(string, offset, length, bytes, index, strict, false);
+    }
+
+
+    // the characters are left out of any error message when decoding in place, since by then
+    // they have been partly overwritten by the decoded bytes
+    static private int decodeCharacters(CharSequence string, int offset, int length, byte[] bytes, int index,
+            boolean strict, boolean inPlace) {
+        int end = offset + length;
+        int i = offset;
+        int block = 0;
+        int count = 0;  // the number of characters in a partially decoded block
+        while (i < end) {
+            if (count == 0 && end - i >= 4) {
+                // decode a whole block at a time while there is no white space or padding
+                int first = decodeCharacter(string.charAt(i));
+                int second = decodeCharacter(string.charAt(i + 1));
+                int third = decodeCharacter(string.charAt(i + 2));
+                int fourth = decodeCharacter(string.charAt(i + 3));
+                if ((first | second | third | fourth) >= 0) {
+                    block = first << 18 | second << 12 | third << 6 | fourth;
+                    bytes[index++] = (byte) (block >>> 16);
+                    bytes[index++] = (byte) (block >>> 8);
+                    bytes[index++] = (byte) block;
+                    block = 0;
+                    i += 4;
+                    continue;
+                }
+            }
+            char character = string.charAt(i++);
+            int chunk = decodeCharacter(character);
+            if (chunk < 0) {
+                if (character == '=') break;  // the rest must be padding
+                if (!strict && Alphabet.isWhiteSpace(character)) continue;  // skip any white space
+                throw invalidCharacter(string, i - 1, inPlace);
+            }
+            block = (block << 6) | chunk;
+            if (++count == 4) {
+                bytes[index++] = (byte) (block >>> 16);
+                bytes[index++] = (byte) (block >>> 8);
+                bytes[index++] = (byte) block;
+                block = 0;
+                count = 0;
+            }
+        }
+        while (i < end) {
+            char character = string.charAt(i++);
+            if (character != '=' && (strict || !Alphabet.isWhiteSpace(character))) {
+                throw invalidCharacter(string, i - 1, inPlace);
+            }
+        }
+        if (count == 1) {
+            // no number of bytes encodes to this length
+            throw incompleteBlock(string, inPlace);
+        }
+        if (count > 0) {
+            // same as normal, but drop the bits that don't fill a whole byte
+            block <<= (4 - count) * 6;
+            bytes[index++] = (byte) (block >>> 16);
+            if (count == 3) bytes[index++] = (byte) (block >>> 8);
+        }
+        return index;
+    }
+
+
+    static private NumberFormatException invalidCharacter(CharSequence string, int i, boolean inPlace) {
+        if (inPlace) return new NumberFormatException("Attempted to decode a character that is not base 64 at offset " + i + ".");
+        return new NumberFormatException("Attempted to decode a string that is not base 64: " + string);
+    }
+
+
+    static private NumberFormatException incompleteBlock(CharSequence string, boolean inPlace) {
+        if (inPlace) return new NumberFormatException("Attempted to decode an incomplete block of base 64 characters.");
+        return new NumberFormatException("Attempted to decode a string that is not base 64: " + string);
+    }
+
+
+    static int decodeCharacters(char[] chars, int offset, int length, byte[] bytes, int index) {
+        int end = offset + length;
+        if (end > offset && chars[end - 1] == '=') end--;  // strip any padding
+        if (end > offset && chars[end - 1] == '=') end--;
+        int i = offset;
+        if (kernels != null) {
+            i += kernels.decodeBase64(chars, offset, end - offset, bytes, index);
+            index += (i - offset) / 4 * 3;
+        }
+        int check = 0;
+        while (end - i >= 4) {
+            int first = decodeCharacter(chars[i++]);
+            int second = decodeCharacter(chars[i++]);
+            int third = decodeCharacter(chars[i++]);
+            int fourth = decodeCharacter(chars[i++]);
+            check |= first | second | third | fourth;
+            int block = first << 18 | second << 12 | third << 6 | fourth;
+            bytes[index++] = (byte) (block >>> 16);
+            bytes[index++] = (byte) (block >>> 8);
+            bytes[index++] = (byte) block;
+        }
+        int remaining = end - i;
+        if (remaining == 1) {
+            // no number of bytes encodes to this length
+            throw new NumberFormatException("Attempted to decode an invalid number of base 64 characters: " + length);
+        }
+        if (remaining > 1) {
+            // same as normal, but drop the bits that don't fill a whole byte
+            int first = decodeCharacter(chars[i++]);
+            int second = decodeCharacter(chars[i++]);
+            int third = remaining == 3 ? decodeCharacter(chars[i]) : 0;
+            check |= first | second | third;
+            int block = first << 18 | second << 12 | third << 6;
+            bytes[index++] = (byte) (block >>> 16);
+            if (remaining == 3) bytes[index++] = (byte) (block >>> 8);
+        }
+        if (check < 0) throw new NumberFormatException("Attempted to decode a character that is not base 64.");
+        return index;
+    }
+
+
+    static private byte[] decodeSequence(CharSequence string, boolean strict) {
+        return decodeSequence(string, strict, ParallelCoding.threshold);
+    }
 
+
+    /**
+     * This function decodes a base 64 encoded character sequence.  Sequences that are at least
+     * as long as the specified threshold are decoded in parallel.
+     *
+     * @param string The base 64 encoded character sequence.
+     * @param strict Whether or not white space should be rejected.
+     * @param threshold The number of characters at or above which the sequence is decoded in parallel.
+     * @return The decoded byte array.
+     */
+    static byte[] decodeSequence(CharSequence string, boolean strict, int threshold) {
+        int padding = countPadding(string);
+        if (string.length() >= threshold) {
+            return ParallelCoding.decode(string, 4, 3, Base64Utils::decodeCharacters, strict, padding);
+        }
+        int characters = strict ? string.length() : Alphabet.countCharacters(string);
+        byte[] bytes = new byte[(int) ((characters - padding) * 3L / 4)];
+        int i = 0;
+        if (kernels != null && characters == string.length()) {
+            // let the kernels decode the leading whole blocks of a compact string
+            i = kernels.decodeBase64(string, 0, characters, bytes, 0);
+        }
+        decodeCharacters(string, i, string.length() - i, bytes, i / 4 * 3, strict);
+        return bytes;
+    }
+
+
+    // returns the number of bytes that a string decodes to, or (-(i + 1)) where i is the index
+    // of the first invalid character (or the length of the string if a block is incomplete)
+    static private int scanCharacters(CharSequence string) {
+        int length = string.length();
+        int count = 0;  // the number of characters that are not white space
+        boolean padded = false;
+        for (int i = 0; i < length; i++) {
+            char character = string.charAt(i);
+            if (!padded && decodeCharacter(character) >= 0) {
+                count++;
+            } else if (character == '=') {
+                padded = true;  // the rest must be padding
+            } else if (!Alphabet.isWhiteSpace(character)) {
+                return -1 - i;
+            }
+        }
+        if (count % 4 == 1) return -1 - length;  // no number of bytes encodes to this length
+        return (int) (count * 3L / 4);
+    }
+
+
+    static private int decodeCharacter(char character) {
+        return character < 128 ? chunks[character] : -1;
+    }
+
+
+    static private int countPadding(CharSequence string) {
+        int count = 0;
+        for (int i = string.length() - 1; i >= 0; i--) {
+            char character = string.charAt(i);
+            if (character == '=') {
+                count++;
+            } else if (!Alphabet.isWhiteSpace(character)) {
+                break;
+            }
+        }
+        return count;
+    }
+
+
+    static private final String lookupTable = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    // the 6 bit chunk value for each ASCII character, or -1 if it is not a base 64 character,
+    // the URL safe characters '-' and '_' are accepted in place of '+' and '/'
+    static private final byte[] chunks = new byte[128];
+
+    static {
+        Arrays.fill(chunks, (byte) -1);
+        for (int i = 0; i < lookupTable.length(); i++) {
+            chunks[lookupTable.charAt(i)] = (byte) i;
+        }
+        chunks['-'] = 62;
+        chunks['_'] = 63;
+    }
+
+    // the generic alphabet used for buffer conversions, it accepts the same characters as the
+    // string conversions
+    static private final Alphabet alphabet = new Alphabet(lookupTable, true, chunks);
+
+    // the bulk kernels, if they are available
+    static private final Kernels kernels = Kernels.instance;
+
+
+    private Base64Utils() {
     }
 
 }
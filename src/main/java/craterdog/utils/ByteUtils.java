@@ -10,11 +10,23 @@
 package craterdog.utils;
 
 import java.math.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 
 /**
  * This utility class defines functions that manipulate bytes and byte arrays in useful ways.
+ * The primitive conversions use big endian (network) byte order unless a
+ * <code>ByteOrder</code> is specified.
+ * Whole arrays of primitives are converted in bulk through <code>ByteBuffer</code> views,
+ * which copy the elements at close to the speed of an array copy.
+ * <p>
+ * Each conversion also has a form that reads or writes a <code>ByteBuffer</code> at an
+ * absolute index, so heap, direct and memory mapped buffers can be used without copying the
+ * bytes into a byte array.  These forms write the same formats as the byte array forms, and
+ * they change neither the position nor the byte order of the buffer.  A foreign memory
+ * segment can be passed in using its <code>asByteBuffer()</code> view.
  *
  * @author Derk Norton
  */
@@ -88,6 +100,34 @@ public final class ByteUtils {
     }
 
 
+    /**
+     * This function converts a boolean into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param b The boolean to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int booleanToBytes(boolean b, ByteBuffer buffer, int index) {
+        buffer.put(index, (byte) (b ? 0xFF : 0x00));
+        return 1;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding boolean value.
+     *
+     * @param buffer The byte buffer containing the boolean.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding boolean value.
+     */
+    static public boolean bytesToBoolean(ByteBuffer buffer, int index) {
+        return buffer.get(index) != 0;
+    }
+
+
     // Short Conversions
 
     /**
@@ -126,11 +166,24 @@ public final class ByteUtils {
      * @return The number of bytes inserted.
      */
     static public int shortToBytes(short s, byte[] buffer, int index) {
-        int length = 2;
-        for (int i = 0; i < length; i++) {
-            buffer[index + length - i - 1] = (byte) (s >> (i * 8));
-        }
-        return length;
+        putShort(s, buffer, index);
+        return 2;
+    }
+
+
+    /**
+     * This function converts a short into its corresponding byte format using the specified
+     * byte order and inserts it into the specified buffer at the specified index.
+     *
+     * @param s The short to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @param order The order of the bytes in the buffer.
+     * @return The number of bytes inserted.
+     */
+    static public int shortToBytes(short s, byte[] buffer, int index, ByteOrder order) {
+        putShort(order == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s), buffer, index);
+        return 2;
     }
 
 
@@ -154,12 +207,178 @@ public final class ByteUtils {
      * @return The corresponding short value.
      */
     static public short bytesToShort(byte[] buffer, int index) {
-        int length = 2;
-        short integer = 0;
-        for (int i = 0; i < length; i++) {
-            integer |= ((buffer[index + length - i - 1] & 0xFF) << (i * 8));
-        }
-        return integer;
+        return getShort(buffer, index);
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding short value using the specified byte order.
+     *
+     * @param buffer The byte array containing the short.
+     * @param index The index for the first byte in the byte array.
+     * @param order The order of the bytes in the buffer.
+     * @return The corresponding short value.
+     */
+    static public short bytesToShort(byte[] buffer, int index, ByteOrder order) {
+        short s = getShort(buffer, index);
+        return order == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s);
+    }
+
+
+    /**
+     * This function converts a short into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param s The short to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int shortToBytes(short s, ByteBuffer buffer, int index) {
+        buffer.putShort(index, isBigEndian(buffer) ? s : Short.reverseBytes(s));
+        return 2;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding short value.
+     *
+     * @param buffer The byte buffer containing the short.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding short value.
+     */
+    static public short bytesToShort(ByteBuffer buffer, int index) {
+        short s = buffer.getShort(index);
+        return isBigEndian(buffer) ? s : Short.reverseBytes(s);
+    }
+
+
+    // Character Conversions
+
+    /**
+     * This function converts a character to its corresponding byte array format.
+     *
+     * @param c The character to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] charToBytes(char c) {
+        byte[] buffer = new byte[2];
+        charToBytes(c, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a character into its corresponding byte format and inserts
+     * it into the specified buffer.
+     *
+     * @param c The character to be converted.
+     * @param buffer The byte array.
+     * @return The number of bytes inserted.
+     */
+    static public int charToBytes(char c, byte[] buffer) {
+        return charToBytes(c, buffer, 0);
+    }
+
+
+    /**
+     * This function converts a character into its corresponding byte format and inserts
+     * it into the specified buffer at the specified index.
+     *
+     * @param c The character to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int charToBytes(char c, byte[] buffer, int index) {
+        putShort((short) c, buffer, index);
+        return 2;
+    }
+
+
+    /**
+     * This function converts a character into its corresponding byte format using the specified
+     * byte order and inserts it into the specified buffer at the specified index.
+     *
+     * @param c The character to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @param order The order of the bytes in the buffer.
+     * @return The number of bytes inserted.
+     */
+    static public int charToBytes(char c, byte[] buffer, int index, ByteOrder order) {
+        putShort((short) (order == ByteOrder.BIG_ENDIAN ? c : Character.reverseBytes(c)), buffer, index);
+        return 2;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding character value.
+     *
+     * @param buffer The byte array containing the character.
+     * @return The corresponding character value.
+     */
+    static public char bytesToChar(byte[] buffer) {
+        return bytesToChar(buffer, 0);
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding character value.
+     *
+     * @param buffer The byte array containing the character.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding character value.
+     */
+    static public char bytesToChar(byte[] buffer, int index) {
+        return (char) getShort(buffer, index);
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding character value using the specified byte order.
+     *
+     * @param buffer The byte array containing the character.
+     * @param index The index for the first byte in the byte array.
+     * @param order The order of the bytes in the buffer.
+     * @return The corresponding character value.
+     */
+    static public char bytesToChar(byte[] buffer, int index, ByteOrder order) {
+        char c = (char) getShort(buffer, index);
+        return order == ByteOrder.BIG_ENDIAN ? c : Character.reverseBytes(c);
+    }
+
+
+    /**
+     * This function converts a character into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param c The character to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int charToBytes(char c, ByteBuffer buffer, int index) {
+        buffer.putChar(index, isBigEndian(buffer) ? c : Character.reverseBytes(c));
+        return 2;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding character value.
+     *
+     * @param buffer The byte buffer containing the character.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding character value.
+     */
+    static public char bytesToChar(ByteBuffer buffer, int index) {
+        char c = buffer.getChar(index);
+        return isBigEndian(buffer) ? c : Character.reverseBytes(c);
     }
 
 
@@ -202,7 +421,11 @@ public final class ByteUtils {
      */
     static public int intToBytes(int i, byte[] buffer, int index) {
         int length = buffer.length - index;
-        if (length > 4) length = 4;
+        if (length >= 4) {
+            putInt(i, buffer, index);
+            return 4;
+        }
+        // a buffer that is too short receives only the low order bytes
         for (int j = 0; j < length; j++) {
             buffer[index + length - j - 1] = (byte) (i >> (j * 8));
         }
@@ -210,6 +433,23 @@ public final class ByteUtils {
     }
 
 
+    /**
+     * This function converts an integer into its corresponding byte format using the specified
+     * byte order and inserts it into the specified buffer at the specified index.
+     * Unlike the big endian function, the buffer must have room for all 4 bytes.
+     *
+     * @param i The integer to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @param order The order of the bytes in the buffer.
+     * @return The number of bytes inserted.
+     */
+    static public int intToBytes(int i, byte[] buffer, int index, ByteOrder order) {
+        putInt(order == ByteOrder.BIG_ENDIAN ? i : Integer.reverseBytes(i), buffer, index);
+        return 4;
+    }
+
+
     /**
      * This function converts the bytes in a byte array to its corresponding integer value.
      *
@@ -231,7 +471,8 @@ public final class ByteUtils {
      */
     static public int bytesToInt(byte[] buffer, int index) {
         int length = buffer.length - index;
-        if (length > 4) length = 4;
+        if (length >= 4) return getInt(buffer, index);
+        // a buffer that is too short holds only the low order bytes
         int integer = 0;
         for (int i = 0; i < length; i++) {
             integer |= ((buffer[index + length - i - 1] & 0xFF) << (i * 8));
@@ -240,6 +481,52 @@ public final class ByteUtils {
     }
 
 
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding integer value using the specified byte order.
+     * Unlike the big endian function, the buffer must contain all 4 bytes.
+     *
+     * @param buffer The byte array containing the integer.
+     * @param index The index for the first byte in the byte array.
+     * @param order The order of the bytes in the buffer.
+     * @return The corresponding integer value.
+     */
+    static public int bytesToInt(byte[] buffer, int index, ByteOrder order) {
+        int i = getInt(buffer, index);
+        return order == ByteOrder.BIG_ENDIAN ? i : Integer.reverseBytes(i);
+    }
+
+
+    /**
+     * This function converts an integer into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     * Unlike the byte array function, the buffer must have room for all 4 bytes.
+     *
+     * @param i The integer to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int intToBytes(int i, ByteBuffer buffer, int index) {
+        buffer.putInt(index, isBigEndian(buffer) ? i : Integer.reverseBytes(i));
+        return 4;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding integer value.
+     *
+     * @param buffer The byte buffer containing the integer.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding integer value.
+     */
+    static public int bytesToInt(ByteBuffer buffer, int index) {
+        int i = buffer.getInt(index);
+        return isBigEndian(buffer) ? i : Integer.reverseBytes(i);
+    }
+
+
     // Long Integer Conversions
 
     /**
@@ -279,7 +566,11 @@ public final class ByteUtils {
      */
     static public int longToBytes(long l, byte[] buffer, int index) {
         int length = buffer.length - index;
-        if (length > 8) length = 8;
+        if (length >= 8) {
+            putLong(l, buffer, index);
+            return 8;
+        }
+        // a buffer that is too short receives only the low order bytes
         for (int i = 0; i < length; i++) {
             buffer[index + length - i - 1] = (byte) (l >> (i * 8));
         }
@@ -287,6 +578,23 @@ public final class ByteUtils {
     }
 
 
+    /**
+     * This function converts a long into its corresponding byte format using the specified
+     * byte order and inserts it into the specified buffer at the specified index.
+     * Unlike the big endian function, the buffer must have room for all 8 bytes.
+     *
+     * @param l The long to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @param order The order of the bytes in the buffer.
+     * @return The number of bytes inserted.
+     */
+    static public int longToBytes(long l, byte[] buffer, int index, ByteOrder order) {
+        putLong(order == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l), buffer, index);
+        return 8;
+    }
+
+
     /**
      * This function converts the bytes in a byte array to its corresponding long value.
      *
@@ -308,7 +616,8 @@ public final class ByteUtils {
      */
     static public long bytesToLong(byte[] buffer, int index) {
         int length = buffer.length - index;
-        if (length > 8) length = 8;
+        if (length >= 8) return getLong(buffer, index);
+        // a buffer that is too short holds only the low order bytes
         long l = 0;
         for (int i = 0; i < length; i++) {
             l |= ((buffer[index + length - i - 1] & 0xFFL) << (i * 8));
@@ -317,6 +626,52 @@ public final class ByteUtils {
     }
 
 
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding long value using the specified byte order.
+     * Unlike the big endian function, the buffer must contain all 8 bytes.
+     *
+     * @param buffer The byte array containing the long.
+     * @param index The index for the first byte in the byte array.
+     * @param order The order of the bytes in the buffer.
+     * @return The corresponding long value.
+     */
+    static public long bytesToLong(byte[] buffer, int index, ByteOrder order) {
+        long l = getLong(buffer, index);
+        return order == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
+
+    /**
+     * This function converts a long into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     * Unlike the byte array function, the buffer must have room for all 8 bytes.
+     *
+     * @param l The long to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int longToBytes(long l, ByteBuffer buffer, int index) {
+        buffer.putLong(index, isBigEndian(buffer) ? l : Long.reverseBytes(l));
+        return 8;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding long value.
+     *
+     * @param buffer The byte buffer containing the long.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding long value.
+     */
+    static public long bytesToLong(ByteBuffer buffer, int index) {
+        long l = buffer.getLong(index);
+        return isBigEndian(buffer) ? l : Long.reverseBytes(l);
+    }
+
+
     // Big Integer Conversions
 
     /**
@@ -381,7 +736,7 @@ public final class ByteUtils {
      * @return The corresponding big integer value.
      */
     static public BigInteger bytesToBigInteger(byte[] buffer, int index) {
-        int length = bytesToInt(buffer, index);  // pull out the length of the big integer
+        int length = bytesToInt(buffer, index) - 4;  // pull out the length of the big integer
         index += 4;
         byte[] bytes = new byte[length];
         System.arraycopy(buffer, index, bytes, 0, length);  // pull out the bytes for the big integer
@@ -389,78 +744,292 @@ public final class ByteUtils {
     }
 
 
-    // Double Precision Floating Point Conversions
+    /**
+     * This function converts a big integer into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param integer The big integer to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int bigIntegerToBytes(BigInteger integer, ByteBuffer buffer, int index) {
+        byte[] bytes = integer.toByteArray();
+        int length = 4 + bytes.length;
+        intToBytes(length, buffer, index);  // copy in the length
+        putBytes(bytes, buffer, index + 4);  // copy in the big integer
+        return length;
+    }
+
 
     /**
-     * This function converts a double to its corresponding byte array format.
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding big integer value.
      *
-     * @param d The double to be converted.
+     * @param buffer The byte buffer containing the big integer.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding big integer value.
+     */
+    static public BigInteger bytesToBigInteger(ByteBuffer buffer, int index) {
+        int length = bytesToInt(buffer, index) - 4;  // pull out the length of the big integer
+        byte[] bytes = getBytes(buffer, index + 4, length);  // pull out the bytes for the big integer
+        return new BigInteger(bytes);
+    }
+
+
+    // Single Precision Floating Point Conversions
+
+    /**
+     * This function converts a float to its corresponding byte array format.
+     *
+     * @param f The float to be converted.
      * @return The corresponding byte array.
      */
-    static public byte[] doubleToBytes(double d) {
-        byte[] buffer = new byte[8];
-        doubleToBytes(d, buffer, 0);
+    static public byte[] floatToBytes(float f) {
+        byte[] buffer = new byte[4];
+        floatToBytes(f, buffer, 0);
         return buffer;
     }
 
 
     /**
-     * This function converts a double into its corresponding byte format and inserts
+     * This function converts a float into its corresponding byte format and inserts
      * it into the specified buffer.
      *
-     * @param d The double to be converted.
+     * @param f The float to be converted.
      * @param buffer The byte array.
      * @return The number of bytes inserted.
      */
-    static public int doubleToBytes(double d, byte[] buffer) {
-        return doubleToBytes(d, buffer, 0);
+    static public int floatToBytes(float f, byte[] buffer) {
+        return floatToBytes(f, buffer, 0);
     }
 
 
     /**
-     * This function converts a double into its corresponding byte format and inserts
+     * This function converts a float into its corresponding byte format and inserts
      * it into the specified buffer at the specified index.
      *
-     * @param s The double to be converted.
+     * @param f The float to be converted.
      * @param buffer The byte array.
      * @param index The index in the array to begin inserting bytes.
      * @return The number of bytes inserted.
      */
-    static public int doubleToBytes(double s, byte[] buffer, int index) {
-        long bits = Double.doubleToRawLongBits(s);
-        int length = longToBytes(bits, buffer, index);
-        return length;
+    static public int floatToBytes(float f, byte[] buffer, int index) {
+        putInt(Float.floatToRawIntBits(f), buffer, index);
+        return 4;
     }
 
 
     /**
-     * This function converts the bytes in a byte array to its corresponding double value.
+     * This function converts a float into its corresponding byte format using the specified
+     * byte order and inserts it into the specified buffer at the specified index.
      *
-     * @param buffer The byte array containing the double.
-     * @return The corresponding double value.
+     * @param f The float to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @param order The order of the bytes in the buffer.
+     * @return The number of bytes inserted.
      */
-    static public double bytesToDouble(byte[] buffer) {
-        return bytesToDouble(buffer, 0);
+    static public int floatToBytes(float f, byte[] buffer, int index, ByteOrder order) {
+        int bits = Float.floatToRawIntBits(f);
+        putInt(order == ByteOrder.BIG_ENDIAN ? bits : Integer.reverseBytes(bits), buffer, index);
+        return 4;
     }
 
 
     /**
-     * This function converts the bytes in a byte array at the specified index to its
-     * corresponding double value.
+     * This function converts the bytes in a byte array to its corresponding float value.
      *
-     * @param buffer The byte array containing the double.
-     * @param index The index for the first byte in the byte array.
-     * @return The corresponding double value.
+     * @param buffer The byte array containing the float.
+     * @return The corresponding float value.
      */
-    static public double bytesToDouble(byte[] buffer, int index) {
-        double real;
-        long bits = bytesToLong(buffer, index);
-        real = Double.longBitsToDouble(bits);
-        return real;
+    static public float bytesToFloat(byte[] buffer) {
+        return bytesToFloat(buffer, 0);
     }
 
 
-    // Big Floating Point Conversions
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding float value.
+     *
+     * @param buffer The byte array containing the float.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding float value.
+     */
+    static public float bytesToFloat(byte[] buffer, int index) {
+        return Float.intBitsToFloat(getInt(buffer, index));
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding float value using the specified byte order.
+     *
+     * @param buffer The byte array containing the float.
+     * @param index The index for the first byte in the byte array.
+     * @param order The order of the bytes in the buffer.
+     * @return The corresponding float value.
+     */
+    static public float bytesToFloat(byte[] buffer, int index, ByteOrder order) {
+        int bits = getInt(buffer, index);
+        return Float.intBitsToFloat(order == ByteOrder.BIG_ENDIAN ? bits : Integer.reverseBytes(bits));
+    }
+
+
+    /**
+     * This function converts a float into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param f The float to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int floatToBytes(float f, ByteBuffer buffer, int index) {
+        return intToBytes(Float.floatToRawIntBits(f), buffer, index);
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding float value.
+     *
+     * @param buffer The byte buffer containing the float.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding float value.
+     */
+    static public float bytesToFloat(ByteBuffer buffer, int index) {
+        return Float.intBitsToFloat(bytesToInt(buffer, index));
+    }
+
+
+    // Double Precision Floating Point Conversions
+
+    /**
+     * This function converts a double to its corresponding byte array format.
+     *
+     * @param d The double to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] doubleToBytes(double d) {
+        byte[] buffer = new byte[8];
+        doubleToBytes(d, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a double into its corresponding byte format and inserts
+     * it into the specified buffer.
+     *
+     * @param d The double to be converted.
+     * @param buffer The byte array.
+     * @return The number of bytes inserted.
+     */
+    static public int doubleToBytes(double d, byte[] buffer) {
+        return doubleToBytes(d, buffer, 0);
+    }
+
+
+    /**
+     * This function converts a double into its corresponding byte format and inserts
+     * it into the specified buffer at the specified index.
+     *
+     * @param d The double to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int doubleToBytes(double d, byte[] buffer, int index) {
+        // a buffer that is too short receives only the low order bytes, just like a long
+        return longToBytes(Double.doubleToRawLongBits(d), buffer, index);
+    }
+
+
+    /**
+     * This function converts a double into its corresponding byte format using the specified
+     * byte order and inserts it into the specified buffer at the specified index.
+     *
+     * @param d The double to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @param order The order of the bytes in the buffer.
+     * @return The number of bytes inserted.
+     */
+    static public int doubleToBytes(double d, byte[] buffer, int index, ByteOrder order) {
+        long bits = Double.doubleToRawLongBits(d);
+        putLong(order == ByteOrder.BIG_ENDIAN ? bits : Long.reverseBytes(bits), buffer, index);
+        return 8;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding double value.
+     *
+     * @param buffer The byte array containing the double.
+     * @return The corresponding double value.
+     */
+    static public double bytesToDouble(byte[] buffer) {
+        return bytesToDouble(buffer, 0);
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding double value.
+     *
+     * @param buffer The byte array containing the double.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding double value.
+     */
+    static public double bytesToDouble(byte[] buffer, int index) {
+        return Double.longBitsToDouble(bytesToLong(buffer, index));
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding double value using the specified byte order.
+     *
+     * @param buffer The byte array containing the double.
+     * @param index The index for the first byte in the byte array.
+     * @param order The order of the bytes in the buffer.
+     * @return The corresponding double value.
+     */
+    static public double bytesToDouble(byte[] buffer, int index, ByteOrder order) {
+        long bits = getLong(buffer, index);
+        return Double.longBitsToDouble(order == ByteOrder.BIG_ENDIAN ? bits : Long.reverseBytes(bits));
+    }
+
+
+    /**
+     * This function converts a double into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param d The double to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int doubleToBytes(double d, ByteBuffer buffer, int index) {
+        return longToBytes(Double.doubleToRawLongBits(d), buffer, index);
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding double value.
+     *
+     * @param buffer The byte buffer containing the double.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding double value.
+     */
+    static public double bytesToDouble(ByteBuffer buffer, int index) {
+        return Double.longBitsToDouble(bytesToLong(buffer, index));
+    }
+
+
+    // Big Floating Point Conversions
 
     /**
      * This function converts a big decimal to its corresponding byte array format.
@@ -505,10 +1074,10 @@ public final class ByteUtils {
         index += 4;
 
         int precision = decimal.precision();
-        System.arraycopy(intToBytes(precision), 0, buffer, index, 4);  // copy in the scale
+        System.arraycopy(intToBytes(precision), 0, buffer, index, 4);  // copy in the precision
         index += 4;
 
-        System.arraycopy(bigIntegerToBytes(intVal), 0, buffer, index, length - 8);     // copy in the big integer
+        bigIntegerToBytes(intVal, buffer, index);  // copy in the big integer
         return length;
     }
 
@@ -543,6 +1112,38 @@ public final class ByteUtils {
     }
 
 
+    /**
+     * This function converts a big decimal into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param decimal The big decimal to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int bigDecimalToBytes(BigDecimal decimal, ByteBuffer buffer, int index) {
+        intToBytes(decimal.scale(), buffer, index);  // copy in the scale
+        intToBytes(decimal.precision(), buffer, index + 4);  // copy in the precision
+        return 8 + bigIntegerToBytes(decimal.unscaledValue(), buffer, index + 8);  // copy in the big integer
+    }
+
+
+    /**
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding big decimal value.
+     *
+     * @param buffer The byte buffer containing the big decimal.
+     * @param index The index for the first byte in the byte buffer.
+     * @return The corresponding big decimal value.
+     */
+    static public BigDecimal bytesToBigDecimal(ByteBuffer buffer, int index) {
+        int scale = bytesToInt(buffer, index);
+        int precision = bytesToInt(buffer, index + 4);
+        BigInteger intVal = bytesToBigInteger(buffer, index + 8);
+        return new BigDecimal(intVal, scale, new MathContext(precision));
+    }
+
+
     // String Conversions
 
     /**
@@ -611,81 +1212,872 @@ public final class ByteUtils {
     }
 
 
-    // Miscellaneous
+    /**
+     * This function converts a string into its corresponding byte format and inserts
+     * it into the specified byte buffer at the specified index.
+     *
+     * @param string The string to be converted.
+     * @param buffer The byte buffer.
+     * @param index The index in the buffer to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int stringToBytes(String string, ByteBuffer buffer, int index) {
+        byte[] bytes = string.getBytes();
+        putBytes(bytes, buffer, index);
+        return bytes.length;
+    }
+
 
     /**
-     * This function converts a byte into its unsigned integer form.
+     * This function converts the bytes in a byte buffer at the specified index to its
+     * corresponding string value.
      *
-     * @param b The byte to be converted.
-     * @return The unsigned version of the byte as an integer.
+     * @param buffer The byte buffer containing the string.
+     * @param index The index for the first byte in the byte buffer.
+     * @param length The number of bytes that make up the string.
+     * @return The corresponding string value.
      */
-    static public int byteToUnsigned(byte b) {
-        int unsigned = b & 0xFF;
-        return unsigned;
+    static public String bytesToString(ByteBuffer buffer, int index, int length) {
+        return new String(getBytes(buffer, index, length));
     }
 
 
+    // Variable Length Integer Conversions
+
     /**
-     * This function calculates a hash code for the specified byte array.
+     * This function converts an integer to its corresponding variable length (LEB128) byte array
+     * format.  Each byte holds seven bits of the integer, least significant first, and its high
+     * bit is set if more bytes follow.  Negative integers are treated as unsigned and always take
+     * 5 bytes, so the zig zag functions should be used for signed integers.
      *
-     * @param bytes The byte array.
-     * @return The hash code.
+     * @param i The integer to be converted.
+     * @return The corresponding byte array.
      */
-    static public int hashCode(byte[] bytes) {
-        int hash = Arrays.hashCode(bytes);
-        return hash;
+    static public byte[] varIntToBytes(int i) {
+        byte[] buffer = new byte[varIntLength(i)];
+        varIntToBytes(i, buffer, 0);
+        return buffer;
     }
 
 
     /**
-     * This function creates a copy of a byte array.
+     * This function converts an integer into its corresponding variable length byte format and
+     * inserts it into the specified buffer.
      *
-     * @param bytes The byte array.
-     * @return A copy of the byte array.
+     * @param i The integer to be converted.
+     * @param buffer The byte array.
+     * @return The number of bytes inserted.
      */
-    static public byte[] copy(byte[] bytes) {
-        byte[] result = Arrays.copyOf(bytes, bytes.length);
-        return result;
+    static public int varIntToBytes(int i, byte[] buffer) {
+        return varIntToBytes(i, buffer, 0);
     }
 
 
     /**
-     * This function compares two byte arrays to see if they are equal.
+     * This function converts an integer into its corresponding variable length byte format and
+     * inserts it into the specified buffer at the specified index.
      *
-     * @param first The first byte array.
-     * @param second The second byte array.
-     * @return Whether or not the two byte arrays are equal.
+     * @param i The integer to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
      */
-    static public boolean equals(byte[] first, byte[] second) {
-        return Arrays.equals(first, second);
+    static public int varIntToBytes(int i, byte[] buffer, int index) {
+        int start = index;
+        while ((i & ~0x7F) != 0) {
+            buffer[index++] = (byte) (i | 0x80);
+            i >>>= 7;
+        }
+        buffer[index++] = (byte) i;
+        return index - start;
     }
 
 
     /**
-     * This function compares two byte arrays for canonical ordering.
+     * This function converts the variable length bytes in a byte array to its corresponding
+     * integer value.
      *
-     * @param first The first byte array.
-     * @param second The second byte array.
-     * @return The signum result of the comparison.
+     * @param buffer The byte array containing the integer.
+     * @return The corresponding integer value.
      */
-    static public int compare(byte[] first, byte[] second) {
-        // choose the shorter array length
-        int firstLength = first.length;
-        int secondLength = second.length;
-        int shorterLength = Math.min(firstLength, secondLength);
+    static public int bytesToVarInt(byte[] buffer) {
+        return bytesToVarInt(buffer, 0);
+    }
 
-        // compare matching bytes
-        for (int i = 0; i < shorterLength; i++) {
-            int result = Byte.compare(first[i], second[i]);
-            if (result != 0) return Integer.signum(result);
+
+    /**
+     * This function converts the variable length bytes in a byte array at the specified index to
+     * its corresponding integer value.  Only the shortest encoding of each integer is accepted, so
+     * the number of bytes that were converted is given by the <code>varIntLength</code> function
+     * of the result.
+     *
+     * @param buffer The byte array containing the integer.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding integer value.
+     */
+    static public int bytesToVarInt(byte[] buffer, int index) {
+        int i = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer[index++];
+            i |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                // only the shortest encoding is valid, so the last of several bytes cannot be zero
+                if (b == 0 && shift > 0) break;
+                // the fifth byte holds only the top four bits of the integer
+                if (shift == 28 && b > 0x0F) break;
+                return i;
+            }
         }
+        throw new NumberFormatException("Attempted to convert an invalid variable length integer.");
+    }
 
-        // compare lengths if bytes match
-        if (firstLength < secondLength) return -1;
-        if (firstLength > secondLength) return 1;
 
-        // must be same length and equal
-        return 0;
+    /**
+     * This function calculates the number of bytes needed to hold an integer in its variable
+     * length byte format.
+     *
+     * @param i The integer.
+     * @return The number of bytes (1 to 5) needed to hold the integer.
+     */
+    static public int varIntLength(int i) {
+        return (31 - Integer.numberOfLeadingZeros(i | 1)) / 7 + 1;
+    }
+
+
+    /**
+     * This function converts a long to its corresponding variable length (LEB128) byte array
+     * format.  Negative longs are treated as unsigned and always take 10 bytes, so the zig zag
+     * functions should be used for signed longs.
+     *
+     * @param l The long to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] varLongToBytes(long l) {
+        byte[] buffer = new byte[varLongLength(l)];
+        varLongToBytes(l, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a long into its corresponding variable length byte format and inserts
+     * it into the specified buffer.
+     *
+     * @param l The long to be converted.
+     * @param buffer The byte array.
+     * @return The number of bytes inserted.
+     */
+    static public int varLongToBytes(long l, byte[] buffer) {
+        return varLongToBytes(l, buffer, 0);
+    }
+
+
+    /**
+     * This function converts a long into its corresponding variable length byte format and inserts
+     * it into the specified buffer at the specified index.
+     *
+     * @param l The long to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int varLongToBytes(long l, byte[] buffer, int index) {
+        int start = index;
+        while ((l & ~0x7FL) != 0) {
+            buffer[index++] = (byte) (l | 0x80);
+            l >>>= 7;
+        }
+        buffer[index++] = (byte) l;
+        return index - start;
+    }
+
+
+    /**
+     * This function converts the variable length bytes in a byte array to its corresponding long
+     * value.
+     *
+     * @param buffer The byte array containing the long.
+     * @return The corresponding long value.
+     */
+    static public long bytesToVarLong(byte[] buffer) {
+        return bytesToVarLong(buffer, 0);
+    }
+
+
+    /**
+     * This function converts the variable length bytes in a byte array at the specified index to
+     * its corresponding long value.  Only the shortest encoding of each long is accepted, so the
+     * number of bytes that were converted is given by the <code>varLongLength</code> function of
+     * the result.
+     *
+     * @param buffer The byte array containing the long.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding long value.
+     */
+    static public long bytesToVarLong(byte[] buffer, int index) {
+        long l = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer[index++];
+            l |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                // only the shortest encoding is valid, so the last of several bytes cannot be zero
+                if (b == 0 && shift > 0) break;
+                // the tenth byte holds only the top bit of the long
+                if (shift == 63 && b > 0x01) break;
+                return l;
+            }
+        }
+        throw new NumberFormatException("Attempted to convert an invalid variable length long.");
+    }
+
+
+    /**
+     * This function calculates the number of bytes needed to hold a long in its variable length
+     * byte format.
+     *
+     * @param l The long.
+     * @return The number of bytes (1 to 10) needed to hold the long.
+     */
+    static public int varLongLength(long l) {
+        return (63 - Long.numberOfLeadingZeros(l | 1)) / 7 + 1;
+    }
+
+
+    /**
+     * This function converts an integer to its corresponding zig zag variable length byte array
+     * format.  The zig zag mapping interleaves the negative and positive integers (0, -1, 1, -2,
+     * 2, ...) so that integers with a small magnitude take few bytes whatever their sign.
+     *
+     * @param i The integer to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] zigZagIntToBytes(int i) {
+        byte[] buffer = new byte[zigZagIntLength(i)];
+        zigZagIntToBytes(i, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts an integer into its corresponding zig zag variable length byte format
+     * and inserts it into the specified buffer.
+     *
+     * @param i The integer to be converted.
+     * @param buffer The byte array.
+     * @return The number of bytes inserted.
+     */
+    static public int zigZagIntToBytes(int i, byte[] buffer) {
+        return zigZagIntToBytes(i, buffer, 0);
+    }
+
+
+    /**
+     * This function converts an integer into its corresponding zig zag variable length byte format
+     * and inserts it into the specified buffer at the specified index.
+     *
+     * @param i The integer to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int zigZagIntToBytes(int i, byte[] buffer, int index) {
+        return varIntToBytes((i << 1) ^ (i >> 31), buffer, index);
+    }
+
+
+    /**
+     * This function converts the zig zag variable length bytes in a byte array to its
+     * corresponding integer value.
+     *
+     * @param buffer The byte array containing the integer.
+     * @return The corresponding integer value.
+     */
+    static public int bytesToZigZagInt(byte[] buffer) {
+        return bytesToZigZagInt(buffer, 0);
+    }
+
+
+    /**
+     * This function converts the zig zag variable length bytes in a byte array at the specified
+     * index to its corresponding integer value.  The number of bytes that were converted is given
+     * by the <code>zigZagIntLength</code> function of the result.
+     *
+     * @param buffer The byte array containing the integer.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding integer value.
+     */
+    static public int bytesToZigZagInt(byte[] buffer, int index) {
+        int i = bytesToVarInt(buffer, index);
+        return (i >>> 1) ^ -(i & 1);
+    }
+
+
+    /**
+     * This function calculates the number of bytes needed to hold an integer in its zig zag
+     * variable length byte format.
+     *
+     * @param i The integer.
+     * @return The number of bytes (1 to 5) needed to hold the integer.
+     */
+    static public int zigZagIntLength(int i) {
+        return varIntLength((i << 1) ^ (i >> 31));
+    }
+
+
+    /**
+     * This function converts a long to its corresponding zig zag variable length byte array
+     * format.
+     *
+     * @param l The long to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] zigZagLongToBytes(long l) {
+        byte[] buffer = new byte[zigZagLongLength(l)];
+        zigZagLongToBytes(l, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a long into its corresponding zig zag variable length byte format and
+     * inserts it into the specified buffer.
+     *
+     * @param l The long to be converted.
+     * @param buffer The byte array.
+     * @return The number of bytes inserted.
+     */
+    static public int zigZagLongToBytes(long l, byte[] buffer) {
+        return zigZagLongToBytes(l, buffer, 0);
+    }
+
+
+    /**
+     * This function converts a long into its corresponding zig zag variable length byte format and
+     * inserts it into the specified buffer at the specified index.
+     *
+     * @param l The long to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int zigZagLongToBytes(long l, byte[] buffer, int index) {
+        return varLongToBytes((l << 1) ^ (l >> 63), buffer, index);
+    }
+
+
+    /**
+     * This function converts the zig zag variable length bytes in a byte array to its
+     * corresponding long value.
+     *
+     * @param buffer The byte array containing the long.
+     * @return The corresponding long value.
+     */
+    static public long bytesToZigZagLong(byte[] buffer) {
+        return bytesToZigZagLong(buffer, 0);
+    }
+
+
+    /**
+     * This function converts the zig zag variable length bytes in a byte array at the specified
+     * index to its corresponding long value.  The number of bytes that were converted is given by
+     * the <code>zigZagLongLength</code> function of the result.
+     *
+     * @param buffer The byte array containing the long.
+     * @param index The index for the first byte in the byte array.
+     * @return The corresponding long value.
+     */
+    static public long bytesToZigZagLong(byte[] buffer, int index) {
+        long l = bytesToVarLong(buffer, index);
+        return (l >>> 1) ^ -(l & 1);
+    }
+
+
+    /**
+     * This function calculates the number of bytes needed to hold a long in its zig zag variable
+     * length byte format.
+     *
+     * @param l The long.
+     * @return The number of bytes (1 to 10) needed to hold the long.
+     */
+    static public int zigZagLongLength(long l) {
+        return varLongLength((l << 1) ^ (l >> 63));
+    }
+
+
+    // Primitive Array Conversions
+
+    /**
+     * This function converts an array of shorts to its corresponding byte array format.
+     *
+     * @param array The array of shorts to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] shortArrayToBytes(short[] array) {
+        byte[] buffer = new byte[array.length * 2];
+        shortArrayToBytes(array, 0, array.length, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a range of an array of shorts into its corresponding byte
+     * format and inserts it into the specified buffer at the specified index.
+     *
+     * @param array The array of shorts to be converted.
+     * @param offset The index of the first element to be converted.
+     * @param length The number of elements to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int shortArrayToBytes(short[] array, int offset, int length, byte[] buffer, int index) {
+        ByteBuffer.wrap(buffer, index, length * 2).asShortBuffer().put(array, offset, length);
+        return length * 2;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding array of shorts.
+     *
+     * @param buffer The byte array containing the shorts.
+     * @return The corresponding array of shorts.
+     * @throws IllegalArgumentException The length of the byte array is not a multiple of 2.
+     */
+    static public short[] bytesToShortArray(byte[] buffer) {
+        if (buffer.length % 2 != 0) throw new IllegalArgumentException("The number of bytes must be a multiple of 2: " + buffer.length);
+        short[] array = new short[buffer.length / 2];
+        bytesToShortArray(buffer, 0, array, 0, array.length);
+        return array;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding shorts and stores them in a range of the specified array.
+     *
+     * @param buffer The byte array containing the shorts.
+     * @param index The index for the first byte in the byte array.
+     * @param array The array in which to store the shorts.
+     * @param offset The index in the array of the first element to be stored.
+     * @param length The number of elements to be stored.
+     * @return The number of bytes converted.
+     */
+    static public int bytesToShortArray(byte[] buffer, int index, short[] array, int offset, int length) {
+        ByteBuffer.wrap(buffer, index, length * 2).asShortBuffer().get(array, offset, length);
+        return length * 2;
+    }
+
+
+    /**
+     * This function converts an array of integers to its corresponding byte array format.
+     *
+     * @param array The array of integers to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] intArrayToBytes(int[] array) {
+        byte[] buffer = new byte[array.length * 4];
+        intArrayToBytes(array, 0, array.length, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a range of an array of integers into its corresponding byte
+     * format and inserts it into the specified buffer at the specified index.
+     *
+     * @param array The array of integers to be converted.
+     * @param offset The index of the first element to be converted.
+     * @param length The number of elements to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int intArrayToBytes(int[] array, int offset, int length, byte[] buffer, int index) {
+        ByteBuffer.wrap(buffer, index, length * 4).asIntBuffer().put(array, offset, length);
+        return length * 4;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding array of integers.
+     *
+     * @param buffer The byte array containing the integers.
+     * @return The corresponding array of integers.
+     * @throws IllegalArgumentException The length of the byte array is not a multiple of 4.
+     */
+    static public int[] bytesToIntArray(byte[] buffer) {
+        if (buffer.length % 4 != 0) throw new IllegalArgumentException("The number of bytes must be a multiple of 4: " + buffer.length);
+        int[] array = new int[buffer.length / 4];
+        bytesToIntArray(buffer, 0, array, 0, array.length);
+        return array;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding integers and stores them in a range of the specified array.
+     *
+     * @param buffer The byte array containing the integers.
+     * @param index The index for the first byte in the byte array.
+     * @param array The array in which to store the integers.
+     * @param offset The index in the array of the first element to be stored.
+     * @param length The number of elements to be stored.
+     * @return The number of bytes converted.
+     */
+    static public int bytesToIntArray(byte[] buffer, int index, int[] array, int offset, int length) {
+        ByteBuffer.wrap(buffer, index, length * 4).asIntBuffer().get(array, offset, length);
+        return length * 4;
+    }
+
+
+    /**
+     * This function converts an array of longs to its corresponding byte array format.
+     *
+     * @param array The array of longs to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] longArrayToBytes(long[] array) {
+        byte[] buffer = new byte[array.length * 8];
+        longArrayToBytes(array, 0, array.length, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a range of an array of longs into its corresponding byte
+     * format and inserts it into the specified buffer at the specified index.
+     *
+     * @param array The array of longs to be converted.
+     * @param offset The index of the first element to be converted.
+     * @param length The number of elements to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int longArrayToBytes(long[] array, int offset, int length, byte[] buffer, int index) {
+        ByteBuffer.wrap(buffer, index, length * 8).asLongBuffer().put(array, offset, length);
+        return length * 8;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding array of longs.
+     *
+     * @param buffer The byte array containing the longs.
+     * @return The corresponding array of longs.
+     * @throws IllegalArgumentException The length of the byte array is not a multiple of 8.
+     */
+    static public long[] bytesToLongArray(byte[] buffer) {
+        if (buffer.length % 8 != 0) throw new IllegalArgumentException("The number of bytes must be a multiple of 8: " + buffer.length);
+        long[] array = new long[buffer.length / 8];
+        bytesToLongArray(buffer, 0, array, 0, array.length);
+        return array;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding longs and stores them in a range of the specified array.
+     *
+     * @param buffer The byte array containing the longs.
+     * @param index The index for the first byte in the byte array.
+     * @param array The array in which to store the longs.
+     * @param offset The index in the array of the first element to be stored.
+     * @param length The number of elements to be stored.
+     * @return The number of bytes converted.
+     */
+    static public int bytesToLongArray(byte[] buffer, int index, long[] array, int offset, int length) {
+        ByteBuffer.wrap(buffer, index, length * 8).asLongBuffer().get(array, offset, length);
+        return length * 8;
+    }
+
+
+    /**
+     * This function converts an array of floats to its corresponding byte array format.
+     *
+     * @param array The array of floats to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] floatArrayToBytes(float[] array) {
+        byte[] buffer = new byte[array.length * 4];
+        floatArrayToBytes(array, 0, array.length, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a range of an array of floats into its corresponding byte
+     * format and inserts it into the specified buffer at the specified index.
+     *
+     * @param array The array of floats to be converted.
+     * @param offset The index of the first element to be converted.
+     * @param length The number of elements to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int floatArrayToBytes(float[] array, int offset, int length, byte[] buffer, int index) {
+        ByteBuffer.wrap(buffer, index, length * 4).asFloatBuffer().put(array, offset, length);
+        return length * 4;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding array of floats.
+     *
+     * @param buffer The byte array containing the floats.
+     * @return The corresponding array of floats.
+     * @throws IllegalArgumentException The length of the byte array is not a multiple of 4.
+     */
+    static public float[] bytesToFloatArray(byte[] buffer) {
+        if (buffer.length % 4 != 0) throw new IllegalArgumentException("The number of bytes must be a multiple of 4: " + buffer.length);
+        float[] array = new float[buffer.length / 4];
+        bytesToFloatArray(buffer, 0, array, 0, array.length);
+        return array;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding floats and stores them in a range of the specified array.
+     *
+     * @param buffer The byte array containing the floats.
+     * @param index The index for the first byte in the byte array.
+     * @param array The array in which to store the floats.
+     * @param offset The index in the array of the first element to be stored.
+     * @param length The number of elements to be stored.
+     * @return The number of bytes converted.
+     */
+    static public int bytesToFloatArray(byte[] buffer, int index, float[] array, int offset, int length) {
+        ByteBuffer.wrap(buffer, index, length * 4).asFloatBuffer().get(array, offset, length);
+        return length * 4;
+    }
+
+
+    /**
+     * This function converts an array of doubles to its corresponding byte array format.
+     *
+     * @param array The array of doubles to be converted.
+     * @return The corresponding byte array.
+     */
+    static public byte[] doubleArrayToBytes(double[] array) {
+        byte[] buffer = new byte[array.length * 8];
+        doubleArrayToBytes(array, 0, array.length, buffer, 0);
+        return buffer;
+    }
+
+
+    /**
+     * This function converts a range of an array of doubles into its corresponding byte
+     * format and inserts it into the specified buffer at the specified index.
+     *
+     * @param array The array of doubles to be converted.
+     * @param offset The index of the first element to be converted.
+     * @param length The number of elements to be converted.
+     * @param buffer The byte array.
+     * @param index The index in the array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    static public int doubleArrayToBytes(double[] array, int offset, int length, byte[] buffer, int index) {
+        ByteBuffer.wrap(buffer, index, length * 8).asDoubleBuffer().put(array, offset, length);
+        return length * 8;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array to its corresponding array of doubles.
+     *
+     * @param buffer The byte array containing the doubles.
+     * @return The corresponding array of doubles.
+     * @throws IllegalArgumentException The length of the byte array is not a multiple of 8.
+     */
+    static public double[] bytesToDoubleArray(byte[] buffer) {
+        if (buffer.length % 8 != 0) throw new IllegalArgumentException("The number of bytes must be a multiple of 8: " + buffer.length);
+        double[] array = new double[buffer.length / 8];
+        bytesToDoubleArray(buffer, 0, array, 0, array.length);
+        return array;
+    }
+
+
+    /**
+     * This function converts the bytes in a byte array at the specified index to its
+     * corresponding doubles and stores them in a range of the specified array.
+     *
+     * @param buffer The byte array containing the doubles.
+     * @param index The index for the first byte in the byte array.
+     * @param array The array in which to store the doubles.
+     * @param offset The index in the array of the first element to be stored.
+     * @param length The number of elements to be stored.
+     * @return The number of bytes converted.
+     */
+    static public int bytesToDoubleArray(byte[] buffer, int index, double[] array, int offset, int length) {
+        ByteBuffer.wrap(buffer, index, length * 8).asDoubleBuffer().get(array, offset, length);
+        return length * 8;
+    }
+
+
+    // Miscellaneous
+
+    /**
+     * This function converts a byte into its unsigned integer form.
+     *
+     * @param b The byte to be converted.
+     * @return The unsigned version of the byte as an integer.
+     */
+    static public int byteToUnsigned(byte b) {
+        int unsigned = b & 0xFF;
+        return unsigned;
+    }
+
+
+    /**
+     * This function calculates a hash code for the specified byte array.
+     *
+     * @param bytes The byte array.
+     * @return The hash code.
+     */
+    static public int hashCode(byte[] bytes) {
+        int hash = Arrays.hashCode(bytes);
+        return hash;
+    }
+
+
+    /**
+     * This function creates a copy of a byte array.
+     *
+     * @param bytes The byte array.
+     * @return A copy of the byte array.
+     */
+    static public byte[] copy(byte[] bytes) {
+        byte[] result = Arrays.copyOf(bytes, bytes.length);
+        return result;
+    }
+
+
+    /**
+     * This function compares two byte arrays to see if they are equal.
+     *
+     * @param first The first byte array.
+     * @param second The second byte array.
+     * @return Whether or not the two byte arrays are equal.
+     */
+    static public boolean equals(byte[] first, byte[] second) {
+        return Arrays.equals(first, second);
+    }
+
+
+    /**
+     * This function compares two byte arrays for canonical ordering.
+     *
+     * @param first The first byte array.
+     * @param second The second byte array.
+     * @return The signum result of the comparison.
+     */
+    static public int compare(byte[] first, byte[] second) {
+        // choose the shorter array length
+        int firstLength = first.length;
+        int secondLength = second.length;
+        int shorterLength = Math.min(firstLength, secondLength);
+
+        // compare matching bytes
+        for (int i = 0; i < shorterLength; i++) {
+            int result = Byte.compare(first[i], second[i]);
+            if (result != 0) return Integer.signum(result);
+        }
+
+        // compare lengths if bytes match
+        if (firstLength < secondLength) return -1;
+        if (firstLength > secondLength) return 1;
+
+        // must be same length and equal
+        return 0;
+    }
+
+
+    /**
+     * This function compares two byte arrays lexicographically, treating each byte as an
+     * unsigned value.  This is the order in which most external stores sort binary keys, and
+     * unlike the <code>compare</code> function, bytes 0x80..0xFF sort after bytes 0x00..0x7F.
+     *
+     * @param first The first byte array.
+     * @param second The second byte array.
+     * @return The signum result of the comparison.
+     */
+    static public int compareUnsigned(byte[] first, byte[] second) {
+        int shorterLength = Math.min(first.length, second.length);
+        for (int i = 0; i < shorterLength; i++) {
+            int result = (first[i] & 0xFF) - (second[i] & 0xFF);
+            if (result != 0) return Integer.signum(result);
+        }
+        return Integer.signum(first.length - second.length);
+    }
+
+
+    /*
+     * The following functions read and write big endian values using straight line code that
+     * the JIT compiler can combine into single loads and stores.  The last byte is accessed
+     * first so that a single bounds check covers the whole value.
+     */
+
+    static private void putShort(short s, byte[] buffer, int index) {
+        buffer[index + 1] = (byte) s;
+        buffer[index] = (byte) (s >>> 8);
+    }
+
+
+    static private short getShort(byte[] buffer, int index) {
+        return (short) ((buffer[index + 1] & 0xFF) | buffer[index] << 8);
+    }
+
+
+    static private void putInt(int i, byte[] buffer, int index) {
+        buffer[index + 3] = (byte) i;
+        buffer[index + 2] = (byte) (i >>> 8);
+        buffer[index + 1] = (byte) (i >>> 16);
+        buffer[index] = (byte) (i >>> 24);
+    }
+
+
+    static private int getInt(byte[] buffer, int index) {
+        return (buffer[index + 3] & 0xFF)
+                | (buffer[index + 2] & 0xFF) << 8
+                | (buffer[index + 1] & 0xFF) << 16
+                | buffer[index] << 24;
+    }
+
+
+    static private void putLong(long l, byte[] buffer, int index) {
+        putInt((int) l, buffer, index + 4);
+        putInt((int) (l >>> 32), buffer, index);
+    }
+
+
+    static private long getLong(byte[] buffer, int index) {
+        return (getInt(buffer, index + 4) & 0xFFFFFFFFL) | (long) getInt(buffer, index) << 32;
+    }
+
+
+    /*
+     * The byte buffer functions always use big endian order, whatever the order of the buffer.
+     */
+    static private boolean isBigEndian(ByteBuffer buffer) {
+        return buffer.order() == ByteOrder.BIG_ENDIAN;
+    }
+
+
+    static private void putBytes(byte[] bytes, ByteBuffer buffer, int index) {
+        ByteBuffer duplicate = buffer.duplicate();  // leaves the position of the buffer alone
+        duplicate.position(index);
+        duplicate.put(bytes);
+    }
+
+
+    static private byte[] getBytes(ByteBuffer buffer, int index, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = buffer.duplicate();  // leaves the position of the buffer alone
+        duplicate.position(index);
+        duplicate.get(bytes);
+        return bytes;
     }
 
 
@@ -0,0 +1,93 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+
+/**
+ * This interface defines the functions that are common to all of the number base encodings.
+ * Unlike the string based functions on the corresponding utility classes, these functions
+ * encode into and decode from existing arrays, and perform no formatting of new lines, so
+ * that hot loops can reuse the same scratch buffers.  A codec for a specific number base can
+ * be chosen at runtime using <code>Codec.forBase</code>.
+ *
+ * @author Derk Norton
+ */
+public interface Codec {
+
+    /**
+     * This function returns the codec for the specified number base.
+     *
+     * @param base The number base (2, 16, 32 or 64).
+     * @return The codec for that number base.
+     */
+    static Codec forBase(int base) {
+        switch (base) {
+            case 2:
+                return Base02Utils.codec;
+            case 16:
+                return Base16Utils.codec;
+            case 32:
+                return Base32Utils.codec;
+            case 64:
+                return Base64Utils.codec;
+            default:
+                throw new IllegalArgumentException("There is no codec for base " + base + ".");
+        }
+    }
+
+
+    /**
+     * This method calculates the exact number of characters that the specified number of
+     * bytes encode to.
+     *
+     * @param length The number of bytes to be encoded.
+     * @return The number of characters in the encoding.
+     */
+    int encodedLength(int length);
+
+
+    /**
+     * This method calculates the exact number of bytes that the specified characters decode to.
+     *
+     * @param source The character array containing the encoded characters.
+     * @param offset The index of the first encoded character.
+     * @param length The number of encoded characters.
+     * @return The number of bytes in the decoding.
+     */
+    int decodedLength(char[] source, int offset, int length);
+
+
+    /**
+     * This method encodes a sequence of bytes into the specified character array.
+     *
+     * @param source The byte array containing the bytes to be encoded.
+     * @param offset The index of the first byte to be encoded.
+     * @param length The number of bytes to be encoded.
+     * @param destination The character array to receive the encoded characters.
+     * @param index The index in the character array to begin inserting characters.
+     * @return The number of characters inserted.
+     */
+    int encode(byte[] source, int offset, int length, char[] destination, int index);
+
+
+    /**
+     * This method decodes a sequence of characters, containing no white space, into the
+     * specified byte array.
+     *
+     * @param source The character array containing the characters to be decoded.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters to be decoded.
+     * @param destination The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of bytes inserted.
+     */
+    int decode(char[] source, int offset, int length, byte[] destination, int index);
+
+}
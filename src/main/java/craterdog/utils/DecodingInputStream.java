@@ -0,0 +1,125 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+
+/**
+ * This abstract class implements an input stream that reads encoded characters from a reader
+ * and returns the decoded bytes.  Any white space in the encoded characters (e.g. line breaks
+ * and indentation) is ignored.  A fixed size buffer of characters and bytes is used no matter
+ * how many characters are read from the reader.
+ *
+ * @author Derk Norton
+ */
+abstract class DecodingInputStream extends InputStream {
+
+    private final Reader reader;
+    private final int charactersPerBlock;
+    private final char[] chars = new char[1024];  // must be a multiple of the block size
+    private final CharBuffer characters = CharBuffer.wrap(chars);
+    private final byte[] bytes;
+    private int count;  // the number of pending characters
+    private int position;  // the index of the next decoded byte to be returned
+    private int limit;  // the number of decoded bytes
+    private boolean endOfInput;
+
+
+    /**
+     * This constructor creates a new decoding input stream.
+     *
+     * @param reader The reader from which the encoded characters are read.
+     * @param charactersPerBlock The number of characters that encode a block of bytes.
+     * @param bytesPerBlock The number of bytes in a block.
+     */
+    DecodingInputStream(Reader reader, int charactersPerBlock, int bytesPerBlock) {
+        this.reader = reader;
+        this.charactersPerBlock = charactersPerBlock;
+        this.bytes = new byte[chars.length / charactersPerBlock * bytesPerBlock];
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return bytes[position++] & 0xFF;
+    }
+
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > buffer.length - offset) throw new IndexOutOfBoundsException();
+        if (length == 0) return 0;
+        if (position == limit && !fill()) return -1;
+        int n = Math.min(length, limit - position);
+        System.arraycopy(bytes, position, buffer, offset, n);
+        position += n;
+        return n;
+    }
+
+
+    @Override
+    public int available() throws IOException {
+        return limit - position;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+
+    /**
+     * This method decodes a sequence of characters, containing no white space, into the
+     * specified byte array.
+     *
+     * @param characters The characters to be decoded.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters to be decoded.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The index in the byte array after the last inserted byte.
+     */
+    abstract int decode(CharSequence characters, int offset, int length, byte[] bytes, int index);
+
+
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            if (endOfInput) return false;
+            int n = reader.read(chars, count, chars.length - count);
+            position = 0;
+            if (n < 0) {
+                // decode the final partial block
+                endOfInput = true;
+                limit = decode(characters, 0, count, bytes, 0);
+                count = 0;
+            } else {
+                // squeeze out any white space
+                int end = count + n;
+                for (int i = count; i < end; i++) {
+                    char character = chars[i];
+                    if (!Alphabet.isWhiteSpace(character)) chars[count++] = character;
+                }
+                // decode all whole blocks and save the rest for later
+                int whole = count - count % charactersPerBlock;
+                limit = decode(characters, 0, whole, bytes, 0);
+                System.arraycopy(chars, whole, chars, 0, count - whole);
+                count -= whole;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,150 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+
+/**
+ * This abstract class implements an output stream that encodes the bytes written to it and
+ * writes the resulting characters to a writer.  The characters are formatted into indented
+ * lines of the specified width exactly as the corresponding <code>encode</code> function formats
+ * them.  Only about a single line of bytes and characters is buffered no matter how many bytes
+ * are written to the stream.  Any partial block of bytes is encoded when the stream is closed.
+ *
+ * @author Derk Norton
+ */
+abstract class EncodingOutputStream extends OutputStream {
+
+    private final Writer writer;
+    private final String indentation;
+    private final int lineWidth;
+    private final byte[] line;  // the whole blocks of bytes that encode to at least one line
+    private final char[] chars;  // the encoded characters for those bytes
+    private int count;  // the number of bytes in the line buffer
+    private int column;  // the number of characters in the current line
+    private boolean started;  // whether or not a line has been written yet
+    private boolean closed;
+
+
+    /**
+     * This constructor creates a new encoding output stream.
+     *
+     * @param writer The writer to which the encoded characters are written.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @param bytesPerBlock The number of bytes in each block.
+     * @param charactersPerBlock The number of characters that encode a block of bytes.
+     */
+    EncodingOutputStream(Writer writer, String indentation, int lineWidth, int bytesPerBlock, int charactersPerBlock) {
+        if (lineWidth < 1) throw new IllegalArgumentException("The line width must be positive: " + lineWidth);
+        int blocks = (lineWidth - 1) / charactersPerBlock + 1;  // enough whole blocks to fill a line
+        this.writer = writer;
+        this.indentation = indentation;
+        this.lineWidth = lineWidth;
+        this.line = new byte[blocks * bytesPerBlock];
+        this.chars = new char[blocks * charactersPerBlock];
+    }
+
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        line[count++] = (byte) b;
+        if (count == line.length) {
+            writeLine(line, 0, count);
+            count = 0;
+        }
+    }
+
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        if (offset < 0 || length < 0 || length > bytes.length - offset) throw new IndexOutOfBoundsException();
+        while (length > 0) {
+            int n;
+            if (count == 0 && length >= line.length) {
+                // encode a whole line directly from the caller's array
+                n = line.length;
+                writeLine(bytes, offset, n);
+            } else {
+                n = Math.min(length, line.length - count);
+                System.arraycopy(bytes, offset, line, count, n);
+                count += n;
+                if (count == line.length) {
+                    writeLine(line, 0, count);
+                    count = 0;
+                }
+            }
+            offset += n;
+            length -= n;
+        }
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writer.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (count > 0) writeLine(line, 0, count);  // encode the final partial line
+        } finally {
+            writer.close();
+        }
+    }
+
+
+    /**
+     * This method encodes a sequence of bytes into the specified character array.
+     *
+     * @param bytes The byte array containing the bytes.
+     * @param offset The index of the first byte to be encoded.
+     * @param length The number of bytes to be encoded.
+     * @param chars The character array to receive the encoded characters.
+     * @param index The index in the character array to begin inserting characters.
+     * @return The index in the character array after the last inserted character.
+     */
+    abstract int encode(byte[] bytes, int offset, int length, char[] chars, int index);
+
+
+    // encodes the bytes and writes the characters, breaking them into lines wherever a line is full
+    private void writeLine(byte[] bytes, int offset, int length) throws IOException {
+        int end = encode(bytes, offset, length, chars, 0);
+        int index = 0;
+        while (index < end) {
+            if (!started || column == lineWidth) {
+                if (started) writer.write('\n');
+                if (indentation != null) writer.write(indentation);
+                started = true;
+                column = 0;
+            }
+            int n = Math.min(end - index, lineWidth - column);
+            writer.write(chars, index, n);
+            index += n;
+            column += n;
+        }
+    }
+
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Attempted to write to a closed stream.");
+    }
+
+}
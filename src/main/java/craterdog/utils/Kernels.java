@@ -0,0 +1,173 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+
+/**
+ * This abstract class defines the bulk kernels that use the SIMD instructions of the processor
+ * to convert the leading whole blocks of a base 16 or base 64 encoding.  The scalar code in each
+ * utility class converts whatever a kernel leaves behind, so a kernel may stop early, for example
+ * at a block containing an invalid character, and leave it to the scalar code to report the error.
+ * <p>
+ * An implementation based on the incubating Java vector API is compiled from the
+ * <code>src/main/java17</code> directory when the project is built using Java 17 or later.  It is
+ * used only when the <code>jdk.incubator.vector</code> module has been added to the running virtual
+ * machine (e.g. <code>java --add-modules jdk.incubator.vector ...</code>), otherwise there are no
+ * kernels and the scalar code does all of the work.
+ *
+ * @author Derk Norton
+ */
+abstract class Kernels {
+
+    /**
+     * The kernels for the running virtual machine, or null if they are not available.  They may be
+     * disabled by setting the system property <code>craterdog.utils.disableKernels</code> to true.
+     */
+    static final Kernels instance = load();
+
+    // the number of characters copied out of a character sequence at a time, a multiple of the
+    // number of characters that every kernel decodes in each step
+    static private final int chunkSize = 4096;
+
+    // the buffer into which each thread copies its characters, so that decoding allocates nothing
+    static private final ThreadLocal<char[]> chunks = ThreadLocal.withInitial(() -> new char[chunkSize]);
+
+
+    /**
+     * This method encodes the leading whole blocks of a byte array using base 16.
+     *
+     * @param bytes The byte array containing the bytes to be encoded.
+     * @param offset The index of the first byte to be encoded.
+     * @param length The number of bytes available to be encoded.
+     * @param chars The character array to receive the base 16 encoded characters.
+     * @param index The index in the character array to begin inserting characters.
+     * @return The number of bytes that were encoded.
+     */
+    abstract int encodeBase16(byte[] bytes, int offset, int length, char[] chars, int index);
+
+
+    /**
+     * This method decodes the leading whole blocks of base 16 characters, stopping at the first
+     * block containing a character that is not base 16.
+     *
+     * @param chars The character array containing the characters to be decoded.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters available to be decoded.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of characters that were decoded.
+     */
+    abstract int decodeBase16(char[] chars, int offset, int length, byte[] bytes, int index);
+
+
+    /**
+     * This method decodes the leading whole blocks of a sequence of base 16 characters, stopping
+     * at the first block containing a character that is not base 16.  The characters are copied
+     * into a small per thread buffer a chunk at a time, so the whole sequence is never copied at
+     * once.
+     *
+     * @param string The character sequence containing the characters to be decoded.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters available to be decoded.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of characters that were decoded.
+     */
+    final int decodeBase16(CharSequence string, int offset, int length, byte[] bytes, int index) {
+        char[] chunk = chunks.get();
+        int i = 0;
+        while (i < length) {
+            int count = copyChunk(string, offset + i, Math.min(chunk.length, length - i), chunk);
+            int decoded = decodeBase16(chunk, 0, count, bytes, index + i / 2);
+            i += decoded;
+            if (decoded < count) break;  // an invalid character or a partial step
+        }
+        return i;
+    }
+
+
+    /**
+     * This method encodes the leading whole blocks of a byte array using base 64.
+     *
+     * @param bytes The byte array containing the bytes to be encoded.
+     * @param offset The index of the first byte to be encoded.
+     * @param length The number of bytes available to be encoded.
+     * @param chars The character array to receive the base 64 encoded characters.
+     * @param index The index in the character array to begin inserting characters.
+     * @param characters The character for each 6 bit chunk value.
+     * @return The number of bytes that were encoded.
+     */
+    abstract int encodeBase64(byte[] bytes, int offset, int length, char[] chars, int index, char[] characters);
+
+
+    /**
+     * This method decodes the leading whole blocks of base 64 characters from either the standard
+     * or the URL safe alphabet, stopping at the first block containing any other character
+     * (including padding).
+     *
+     * @param chars The character array containing the characters to be decoded.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters available to be decoded.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of characters that were decoded.
+     */
+    abstract int decodeBase64(char[] chars, int offset, int length, byte[] bytes, int index);
+
+
+    /**
+     * This method decodes the leading whole blocks of a sequence of base 64 characters from
+     * either the standard or the URL safe alphabet, stopping at the first block containing any
+     * other character (including padding).  The characters are copied into a small per thread
+     * buffer a chunk at a time, so the whole sequence is never copied at once.
+     *
+     * @param string The character sequence containing the characters to be decoded.
+     * @param offset The index of the first character to be decoded.
+     * @param length The number of characters available to be decoded.
+     * @param bytes The byte array to receive the decoded bytes.
+     * @param index The index in the byte array to begin inserting bytes.
+     * @return The number of characters that were decoded.
+     */
+    final int decodeBase64(CharSequence string, int offset, int length, byte[] bytes, int index) {
+        char[] chunk = chunks.get();
+        int i = 0;
+        while (i < length) {
+            int count = copyChunk(string, offset + i, Math.min(chunk.length, length - i), chunk);
+            int decoded = decodeBase64(chunk, 0, count, bytes, index + i / 4 * 3);
+            i += decoded;
+            if (decoded < count) break;  // an invalid character or a partial step
+        }
+        return i;
+    }
+
+
+    static private int copyChunk(CharSequence string, int offset, int length, char[] chunk) {
+        if (string instanceof String) {
+            ((String) string).getChars(offset, offset + length, chunk, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chunk[i] = string.charAt(offset + i);
+            }
+        }
+        return length;
+    }
+
+
+    static private Kernels load() {
+        if (Boolean.getBoolean("craterdog.utils.disableKernels")) return null;
+        try {
+            // the vector API classes are only linked if the module is present
+            return (Kernels) Class.forName("craterdog.utils.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+
+/**
+ * This class implements the formatting engine that is shared by all of the number bases.  An
+ * encoded string is broken into lines of a specific width, each line is preceded by an optional
+ * indentation string, and the lines are separated by new line characters (with no new line at
+ * the end).  The exact length of the formatted result is computed up front and the characters are
+ * encoded directly into their final positions, either in a single character array that becomes
+ * the resulting string, or as ASCII bytes in a byte buffer.
+ *
+ * @author Derk Norton
+ */
+final class LineFormatter {
+
+    /**
+     * The default number of characters in each line, not counting the indentation.
+     */
+    static final int DEFAULT_LINE_WIDTH = 80;
+
+    // the number of characters encoded at a time before being copied into their lines
+    static private final int SEGMENT_SIZE = 4096;
+
+
+    /**
+     * This interface is implemented by the destinations of the formatted characters.
+     */
+    interface Destination {
+
+        /**
+         * This method copies a sequence of characters into the destination.
+         *
+         * @param index The index in the destination of the first character.
+         * @param chars The character array containing the characters.
+         * @param offset The index of the first character to be copied.
+         * @param length The number of characters to be copied.
+         */
+        void put(int index, char[] chars, int offset, int length);
+
+    }
+
+
+    /**
+     * This function encodes a byte array using a codec and formats the result into indented lines.
+     * Large byte arrays are encoded in parallel.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @return The formatted string.
+     */
+    static String format(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth) {
+        return format(codec, bytesPerBlock, bytes, indentation, lineWidth, ParallelCoding.threshold);
+    }
+
+
+    /**
+     * This function encodes a byte array using a codec and formats the result into indented lines.
+     * Byte arrays that are at least as long as the specified threshold are encoded in parallel.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @param threshold The number of bytes at or above which the byte array is encoded in parallel.
+     * @return The formatted string.
+     */
+    static String format(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth,
+            int threshold) {
+        int size = formattedLength(codec, bytes.length, indentation, lineWidth);
+        if (size == 0) return "";  // empty byte array
+        char[] chars = new char[size];
+        int indent = indentation == null ? 0 : indentation.length();
+        if (bytes.length < threshold && indent == 0 && size <= lineWidth) {
+            // there is no formatting to do
+            codec.encode(bytes, 0, bytes.length, chars, 0);
+        } else {
+            format(codec, bytesPerBlock, bytes, indentation, lineWidth, threshold,
+                    (index, source, offset, length) -> System.arraycopy(source, offset, chars, index, length));
+        }
+        return new String(chars);
+    }
+
+
+    /**
+     * This function encodes a byte array using a codec, formats the result into indented lines,
+     * and returns the characters as ASCII bytes.  Large byte arrays are encoded in parallel.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array to be encoded.
+     * @param indentation The ASCII indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @return The formatted ASCII characters.
+     */
+    static byte[] formatAscii(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth) {
+        byte[] ascii = new byte[formattedLength(codec, bytes.length, indentation, lineWidth)];
+        formatAscii(codec, bytesPerBlock, bytes, indentation, lineWidth, ByteBuffer.wrap(ascii));
+        return ascii;
+    }
+
+
+    /**
+     * This function encodes a byte array using a codec, formats the result into indented lines,
+     * and inserts the characters into a byte buffer as ASCII characters.  The position of the
+     * buffer is advanced past the inserted characters.  Large byte arrays are encoded in parallel.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array to be encoded.
+     * @param indentation The ASCII indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @param destination The byte buffer to receive the ASCII characters.
+     * @return The number of characters inserted into the byte buffer.
+     * @throws BufferOverflowException The byte buffer does not have room for all of the characters.
+     */
+    static int formatAscii(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth,
+            ByteBuffer destination) {
+        int size = formattedLength(codec, bytes.length, indentation, lineWidth);
+        if (indentation != null) {
+            for (int i = 0; i < indentation.length(); i++) {
+                if (indentation.charAt(i) > 127) throw new IllegalArgumentException("The indentation must be ASCII: " + indentation);
+            }
+        }
+        if (destination.remaining() < size) throw new BufferOverflowException();
+        int position = destination.position();
+        if (destination.hasArray()) {
+            byte[] ascii = destination.array();
+            int base = destination.arrayOffset() + position;
+            format(codec, bytesPerBlock, bytes, indentation, lineWidth, ParallelCoding.threshold,
+                    (index, source, offset, length) -> {
+                        for (int i = 0; i < length; i++) {
+                            ascii[base + index + i] = (byte) source[offset + i];
+                        }
+                    });
+        } else {
+            format(codec, bytesPerBlock, bytes, indentation, lineWidth, ParallelCoding.threshold,
+                    (index, source, offset, length) -> {
+                        for (int i = 0; i < length; i++) {
+                            destination.put(position + index + i, (byte) source[offset + i]);
+                        }
+                    });
+        }
+        destination.position(position + size);
+        return size;
+    }
+
+
+    /**
+     * This function encodes a byte array using a codec, formats the result into indented lines,
+     * and appends the characters to an appendable (e.g. a string builder, writer or character
+     * buffer) a segment at a time, without creating the whole formatted string.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @param destination The appendable to receive the formatted characters.
+     * @throws IOException The characters could not be appended.
+     */
+    static void format(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth,
+            Appendable destination) throws IOException {
+        formattedLength(codec, bytes.length, indentation, lineWidth);  // validate the arguments
+        try {
+            // the lines are formatted sequentially, so each piece follows the previous one
+            formatLines(codec, bytesPerBlock, bytes, 0, bytes.length, indentation, lineWidth,
+                    (index, chars, offset, length) -> {
+                        try {
+                            append(destination, chars, offset, length);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * This function appends a sequence of characters to an appendable, using the bulk methods
+     * of the common kinds of appendable to avoid appending one character at a time.
+     *
+     * @param destination The appendable to receive the characters.
+     * @param chars The character array containing the characters.
+     * @param offset The index of the first character to be appended.
+     * @param length The number of characters to be appended.
+     * @throws IOException The characters could not be appended.
+     */
+    static void append(Appendable destination, char[] chars, int offset, int length) throws IOException {
+        if (destination instanceof StringBuilder) {
+            ((StringBuilder) destination).append(chars, offset, length);
+        } else if (destination instanceof Writer) {
+            ((Writer) destination).write(chars, offset, length);
+        } else if (destination instanceof CharBuffer) {
+            ((CharBuffer) destination).put(chars, offset, length);
+        } else {
+            destination.append(CharBuffer.wrap(chars, offset, length));
+        }
+    }
+
+
+    /**
+     * This function encodes a range of a byte array and copies the resulting characters into
+     * their lines within the formatted result.  The range must begin on a block boundary so that
+     * the position of its characters within the encoded string is known.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array containing the bytes to be encoded.
+     * @param offset The index of the first byte to be encoded, a multiple of the block size.
+     * @param length The number of bytes to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @param destination The destination of the whole formatted result.
+     */
+    static void formatLines(Codec codec, int bytesPerBlock, byte[] bytes, int offset, int length,
+            String indentation, int lineWidth, Destination destination) {
+        int indent = indentation == null ? 0 : indentation.length();
+        char[] separator = ("\n" + (indentation == null ? "" : indentation)).toCharArray();
+        int segment = Math.max(1, SEGMENT_SIZE / codec.encodedLength(bytesPerBlock)) * bytesPerBlock;
+        char[] encoded = new char[codec.encodedLength(Math.min(segment, length))];
+        long position = codec.encodedLength(offset);  // within the encoded string
+        int end = offset + length;
+        for (int i = offset; i < end; i += segment) {
+            int count = codec.encode(bytes, i, Math.min(segment, end - i), encoded, 0);
+            int j = 0;
+            while (j < count) {
+                int line = (int) (position / lineWidth);
+                int column = (int) (position % lineWidth);
+                int index = (int) (line * (indent + lineWidth + 1L) + indent + column);
+                if (column == 0) {
+                    // start a new indented line
+                    if (line > 0) {
+                        destination.put(index - indent - 1, separator, 0, indent + 1);
+                    } else if (indent > 0) {
+                        destination.put(0, separator, 1, indent);
+                    }
+                }
+                int n = Math.min(count - j, lineWidth - column);
+                destination.put(index, encoded, j, n);
+                j += n;
+                position += n;
+            }
+        }
+    }
+
+
+    /**
+     * This function calculates the exact length of the formatted encoding of the specified
+     * number of bytes.
+     *
+     * @param codec The codec for the number base.
+     * @param length The number of bytes to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @return The number of characters in the formatted result.
+     */
+    static int formattedLength(Codec codec, int length, String indentation, int lineWidth) {
+        if (lineWidth < 1) throw new IllegalArgumentException("The line width must be positive: " + lineWidth);
+        if (length == 0) return 0;
+        int characters = codec.encodedLength(length);
+        int indent = indentation == null ? 0 : indentation.length();
+        int lines = (characters - 1) / lineWidth + 1;
+        long size = characters + lines * (indent + 1L) - 1;  // exact size of the result
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("The encoded string would be too long: " + size);
+        return (int) size;
+    }
+
+
+    static private void format(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth,
+            int threshold, Destination destination) {
+        if (bytes.length >= threshold) {
+            ParallelCoding.encode(codec, bytesPerBlock, bytes, indentation, lineWidth, destination);
+        } else {
+            formatLines(codec, bytesPerBlock, bytes, 0, bytes.length, indentation, lineWidth, destination);
+        }
+    }
+
+
+    private LineFormatter() {
+    }
+
+}
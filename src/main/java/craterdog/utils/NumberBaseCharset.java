@@ -0,0 +1,179 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+
+/**
+ * This class implements a character set that treats a number base encoding as if it were a
+ * character encoding.  Decoding a sequence of (binary) bytes using the character set produces
+ * the number base encoded characters, and encoding a sequence of number base characters using
+ * the character set produces the original bytes.  This lets the standard Java readers and
+ * writers (e.g. <code>InputStreamReader</code>, <code>Files.newBufferedReader</code> and
+ * <code>Channels.newReader</code>) convert streams to and from a number base.  The characters
+ * are not formatted into lines, and any white space is skipped when they are encoded.
+ * <p>
+ * Only a number base whose characters each hold a whole fraction of a byte (e.g. base 16) can
+ * be a character set.  The characters for a final partial block of base 32 or base 64 bytes
+ * could only be produced when the decoder is flushed, and the readers in the JDK never flush
+ * their decoders, so they would silently drop bytes.
+ * <p>
+ * Binary data has no safe replacement for an invalid character, so the encoder reports
+ * malformed input whatever action has been requested.  With the default <code>REPORT</code>
+ * action it is reported where it occurs.  Otherwise the rest of the characters are encoded and
+ * it is reported when the encoder is flushed.  So an <code>OutputStreamWriter</code> throws a
+ * <code>MalformedInputException</code> when it is closed, and <code>String.getBytes</code> and
+ * <code>Charset.encode</code> (which the JDK does not expect to fail) throw an <code>Error</code>
+ * wrapping it, rather than quietly dropping or replacing the character.
+ *
+ * @author Derk Norton
+ */
+final class NumberBaseCharset extends Charset {
+
+    private final Alphabet alphabet;
+
+
+    /**
+     * This constructor creates a new character set for a number base.
+     *
+     * @param name The canonical name of the character set.
+     * @param alphabet The alphabet for the number base.
+     * @throws IllegalArgumentException The characters of the number base do not each hold a
+     * whole fraction of a byte.
+     */
+    NumberBaseCharset(String name, Alphabet alphabet) {
+        super(name, null);
+        if (8 % alphabet.bitsPerCharacter() != 0) {
+            throw new IllegalArgumentException("The characters of a character set must each hold a whole fraction of a byte: " + name);
+        }
+        this.alphabet = alphabet;
+    }
+
+
+    @Override
+    public boolean contains(Charset charset) {
+        return charset == this;
+    }
+
+
+    @Override
+    public CharsetDecoder newDecoder() {
+        return new Decoder();
+    }
+
+
+    @Override
+    public CharsetEncoder newEncoder() {
+        return new Encoder();
+    }
+
+
+    /*
+     * This class converts bytes into number base characters.  Each byte maps onto a whole
+     * number of characters, so there is never a partial character left to be flushed.
+     */
+    private final class Decoder extends CharsetDecoder {
+
+        private final int bitsPerCharacter = alphabet.bitsPerCharacter();
+        private final int charactersPerByte = 8 / alphabet.bitsPerCharacter();
+
+        private Decoder() {
+            super(NumberBaseCharset.this, 8.0f / alphabet.bitsPerCharacter(), 8.0f / alphabet.bitsPerCharacter());
+        }
+
+
+        @Override
+        protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+            while (in.hasRemaining()) {
+                if (out.remaining() < charactersPerByte) return CoderResult.OVERFLOW;
+                int b = in.get() & 0xFF;
+                for (int shift = 8 - bitsPerCharacter; shift >= 0; shift -= bitsPerCharacter) {
+                    out.put(alphabet.encodeChunk(b >>> shift));
+                }
+            }
+            return CoderResult.UNDERFLOW;
+        }
+
+    }
+
+
+    /*
+     * This class converts number base characters back into bytes by pushing them through a bit
+     * accumulator.  White space is skipped, and any bits in the last character that do not
+     * complete a byte are dropped.
+     */
+    private final class Encoder extends CharsetEncoder {
+
+        private final int bitsPerCharacter = alphabet.bitsPerCharacter();
+        private int accumulator;
+        private int bits;  // the number of bits in the accumulator
+        private boolean malformed;  // whether or not an invalid character has been skipped
+
+        private Encoder() {
+            // the default replacement is never used, since invalid characters are always reported
+            super(NumberBaseCharset.this, alphabet.bitsPerCharacter() / 8.0f, 1.0f);
+        }
+
+
+        @Override
+        protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+            while (in.hasRemaining()) {
+                char character = in.get(in.position());
+                int chunk = alphabet.decodeCharacter(character);
+                if (chunk < 0) {
+                    if (!Alphabet.isWhiteSpace(character)) {
+                        if (malformedInputAction() == CodingErrorAction.REPORT) return CoderResult.malformedForLength(1);
+                        malformed = true;  // reported when the encoder is flushed
+                    }
+                    in.get();
+                    continue;
+                }
+                if (bits + bitsPerCharacter >= 8 && !out.hasRemaining()) return CoderResult.OVERFLOW;
+                in.get();
+                accumulator = (accumulator << bitsPerCharacter) | chunk;
+                bits += bitsPerCharacter;
+                if (bits >= 8) {
+                    bits -= 8;
+                    out.put((byte) (accumulator >>> bits));
+                }
+            }
+            return CoderResult.UNDERFLOW;
+        }
+
+
+        @Override
+        protected CoderResult implFlush(ByteBuffer out) {
+            return malformed ? CoderResult.malformedForLength(1) : CoderResult.UNDERFLOW;
+        }
+
+
+        @Override
+        public boolean canEncode(char character) {
+            return alphabet.decodeCharacter(character) >= 0 || Alphabet.isWhiteSpace(character);
+        }
+
+
+        @Override
+        protected void implReset() {
+            accumulator = 0;
+            bits = 0;
+            malformed = false;
+        }
+
+    }
+
+}
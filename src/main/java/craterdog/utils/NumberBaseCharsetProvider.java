@@ -0,0 +1,54 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.spi.CharsetProvider;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * This class provides the base 16 character set to the Java runtime.  It is registered in
+ * <code>META-INF/services</code>, so once this library is on the class path the character set
+ * can be looked up by name, for example:
+ * <pre>
+ * Reader reader = new InputStreamReader(input, Charset.forName("x-craterdog-base16"));
+ * </pre>
+ * Decoding bytes using the character set produces the base 16 encoded characters (with no line
+ * formatting), and encoding base 16 characters produces the original bytes.  There are no base 32
+ * or base 64 character sets since the readers in the JDK would drop the final partial block of
+ * bytes, the <code>Base32/64InputStream</code> and <code>OutputStream</code> classes should be
+ * used to stream those number bases instead.
+ *
+ * @author Derk Norton
+ */
+public final class NumberBaseCharsetProvider extends CharsetProvider {
+
+    static private final List<Charset> charsets = Collections.<Charset>singletonList(
+            new NumberBaseCharset("x-craterdog-base16", Base16Utils.alphabet));
+
+
+    @Override
+    public Iterator<Charset> charsets() {
+        return charsets.iterator();
+    }
+
+
+    @Override
+    public Charset charsetForName(String name) {
+        for (Charset charset : charsets) {
+            if (charset.name().equalsIgnoreCase(name)) return charset;
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,146 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.util.stream.IntStream;
+
+
+/**
+ * This class encodes and decodes large arrays and strings in parallel on the common fork-join
+ * pool.  The input is split into chunks at block boundaries and each chunk is converted directly
+ * into its position in a single exactly sized result, so the result is identical to the one the
+ * sequential functions produce, line breaks and all.  Inputs that are at least as long as the
+ * threshold are converted in parallel.  The threshold defaults to one megabyte and may be set
+ * using the "craterdog.utils.parallelThreshold" system property.
+ *
+ * @author Derk Norton
+ */
+final class ParallelCoding {
+
+    /**
+     * The number of bytes (when encoding) or characters (when decoding) at or above which
+     * the conversion is done in parallel.
+     */
+    static final int threshold = Integer.getInteger("craterdog.utils.parallelThreshold", 1 << 20);
+
+    // the number of bytes or characters converted by each parallel task
+    static private final int CHUNK_SIZE = 1 << 16;
+
+
+    /**
+     * This interface is implemented by the functions that decode a sequence of characters that
+     * may contain white space.
+     */
+    interface Decoder {
+        int decode(CharSequence string, int offset, int length, byte[] bytes, int index, boolean strict);
+    }
+
+
+    /**
+     * This function encodes a byte array in parallel, formatting the result into indented lines.
+     * Each chunk of the byte array is encoded directly into its lines within the result.
+     *
+     * @param codec The codec for the number base.
+     * @param bytesPerBlock The number of bytes in each block encoded by the codec.
+     * @param bytes The byte array to be encoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @param destination The destination of the whole formatted result.
+     */
+    static void encode(Codec codec, int bytesPerBlock, byte[] bytes, String indentation, int lineWidth,
+            LineFormatter.Destination destination) {
+        int length = bytes.length;
+        int bytesPerChunk = Math.max(1, CHUNK_SIZE / bytesPerBlock) * bytesPerBlock;
+        int chunks = (length + bytesPerChunk - 1) / bytesPerChunk;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int offset = chunk * bytesPerChunk;
+            int count = Math.min(bytesPerChunk, length - offset);
+            LineFormatter.formatLines(codec, bytesPerBlock, bytes, offset, count, indentation, lineWidth, destination);
+        });
+    }
+
+
+    /**
+     * This function decodes a string in parallel.  The string is split into chunks and the
+     * characters in each chunk that are not white space are counted in parallel, which gives the
+     * position of every block of characters.  Then each chunk decodes the blocks that begin within
+     * it, in parallel, directly into the result.
+     *
+     * @param string The encoded string.
+     * @param charactersPerBlock The number of characters that encode a block of bytes.
+     * @param bytesPerBlock The number of bytes in a block.
+     * @param decoder The function that decodes a sequence of characters.
+     * @param strict Whether or not white space should be rejected.
+     * @param padding The number of padding characters at the end of the string.
+     * @return The decoded byte array.
+     */
+    static byte[] decode(CharSequence string, int charactersPerBlock, int bytesPerBlock,
+            Decoder decoder, boolean strict, int padding) {
+        int length = string.length();
+        int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        // count the characters that precede each chunk
+        int[] counts = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int start = chunk * CHUNK_SIZE;
+            int end = Math.min(start + CHUNK_SIZE, length);
+            counts[chunk + 1] = strict ? end - start : countCharacters(string, start, end);
+        });
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            counts[chunk + 1] += counts[chunk];
+        }
+        int total = counts[chunks];
+        byte[] bytes = new byte[(int) ((total - padding) * (long) bytesPerBlock / charactersPerBlock)];
+
+        // decode the blocks that begin within each chunk
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int first = roundUp(counts[chunk], charactersPerBlock);  // the first character of the first block
+            int last = Math.min(roundUp(counts[chunk + 1], charactersPerBlock), total);  // the end of the last block
+            if (first >= last) return;  // no blocks begin within this chunk
+            int start = skipCharacters(string, chunk * CHUNK_SIZE, first - counts[chunk], strict);
+            int end = skipCharacters(string, start, last - first, strict);
+            int index = first / charactersPerBlock * bytesPerBlock;
+            decoder.decode(string, start, end - start, bytes, index, strict);
+        });
+        return bytes;
+    }
+
+
+    static private int countCharacters(CharSequence string, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (!Alphabet.isWhiteSpace(string.charAt(i))) count++;
+        }
+        return count;
+    }
+
+
+    // returns the index just past the specified number of characters that are not white space
+    static private int skipCharacters(CharSequence string, int index, int count, boolean strict) {
+        if (strict) return index + count;
+        while (count > 0) {
+            if (!Alphabet.isWhiteSpace(string.charAt(index))) count--;
+            index++;
+        }
+        // don't start or end a block in the middle of any white space
+        while (index < string.length() && Alphabet.isWhiteSpace(string.charAt(index))) index++;
+        return index;
+    }
+
+
+    static private int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+
+
+    private ParallelCoding() {
+    }
+
+}
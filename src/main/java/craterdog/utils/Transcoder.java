@@ -0,0 +1,178 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+
+/**
+ * This class implements a transcoder that converts a string encoded using one number base
+ * directly into a string encoded using another number base.  The characters are pushed through
+ * a small bit accumulator, so the bytes are never decoded into an intermediate byte array.  Any
+ * white space in the source string (e.g. the line breaks and indentation inserted by the
+ * <code>encode</code> functions) is skipped, and the result is formatted exactly as the
+ * corresponding <code>encode</code> function of the target number base would format it.  A
+ * transcoder is immutable and may be shared between threads.
+ *
+ * @author Derk Norton
+ */
+public final class Transcoder {
+
+    private final Codec target;  // used to calculate the length of the result
+    private final Alphabet from;
+    private final Alphabet to;
+
+
+    /**
+     * This function returns a transcoder from one number base to another.  The codecs must be
+     * those provided by the utility classes (e.g. <code>Base16Utils.codec</code> or one of the
+     * <code>Base64Utils.Variant</code> values), or an <code>AlphabetCodec</code>.  A base 64
+     * source string must use the characters of the specified variant.
+     *
+     * @param source The codec for the number base of the source strings.
+     * @param target The codec for the number base of the resulting strings.
+     * @return The corresponding transcoder.
+     */
+    static public Transcoder between(Codec source, Codec target) {
+        return new Transcoder(alphabetFor(source), target);
+    }
+
+
+    private Transcoder(Alphabet from, Codec target) {
+        this.target = target;
+        this.from = from;
+        this.to = alphabetFor(target);
+    }
+
+
+    /**
+     * This method transcodes a string with no indentation of new lines.
+     *
+     * @param string The string to be transcoded.
+     * @return The transcoded string.
+     * @throws NumberFormatException The string is not encoded using the source number base.
+     */
+    public String transcode(CharSequence string) {
+        return transcode(string, null);
+    }
+
+
+    /**
+     * This method transcodes a string and formats the result into indented 80 character lines.
+     *
+     * @param string The string to be transcoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @return The transcoded string.
+     * @throws NumberFormatException The string is not encoded using the source number base.
+     */
+    public String transcode(CharSequence string, String indentation) {
+        return transcode(string, indentation, LineFormatter.DEFAULT_LINE_WIDTH);
+    }
+
+
+    /**
+     * This method transcodes a string and formats the result into indented lines of the
+     * specified width.
+     *
+     * @param string The string to be transcoded.
+     * @param indentation The indentation string to be inserted before each new line.
+     * @param lineWidth The maximum number of characters in each line, not counting the indentation.
+     * @return The transcoded string.
+     * @throws NumberFormatException The string is not encoded using the source number base.
+     */
+    public String transcode(CharSequence string, String indentation, int lineWidth) {
+        int length = decodedLength(string);
+        char[] chars = new char[LineFormatter.formattedLength(target, length, indentation, lineWidth)];
+        if (chars.length == 0) return "";  // empty encoding
+        char[] separator = ("\n" + (indentation == null ? "" : indentation)).toCharArray();
+        int index = separator.length - 1;  // the first line is indented too
+        System.arraycopy(separator, 1, chars, 0, index);
+        int column = 0;
+        int inputBits = from.bitsPerCharacter();
+        int outputBits = to.bitsPerCharacter();
+        int input = 0;  // the input bit accumulator
+        int inputCount = 0;  // the number of bits in the input accumulator
+        int output = 0;  // the output bit accumulator
+        int outputCount = 0;  // the number of bits in the output accumulator
+        int end = string.length();
+        for (int i = 0; i < end && length > 0; i++) {
+            int chunk = from.decodeCharacter(string.charAt(i));
+            if (chunk < 0) continue;  // already validated, so white space
+            input = (input << inputBits) | chunk;
+            inputCount += inputBits;
+            if (inputCount >= 8) {
+                // move the next byte into the output accumulator
+                inputCount -= 8;
+                output = (output << 8) | ((input >>> inputCount) & 0xFF);
+                outputCount += 8;
+                length--;
+                while (outputCount >= outputBits) {
+                    outputCount -= outputBits;
+                    if (column == lineWidth) {
+                        System.arraycopy(separator, 0, chars, index, separator.length);
+                        index += separator.length;
+                        column = 0;
+                    }
+                    chars[index++] = to.encodeChunk(output >>> outputCount);
+                    column++;
+                }
+            }
+        }
+        int padding = 0;
+        if (outputCount > 0) {
+            // pad the last character with 0's
+            output <<= outputBits - outputCount;
+            padding = -1;
+        }
+        while (index < chars.length) {
+            if (column == lineWidth) {
+                System.arraycopy(separator, 0, chars, index, separator.length);
+                index += separator.length;
+                column = 0;
+            }
+            chars[index++] = padding++ < 0 ? to.encodeChunk(output) : '=';
+            column++;
+        }
+        return new String(chars);
+    }
+
+
+    // validates the source string and returns the number of bytes that it encodes
+    private int decodedLength(CharSequence string) {
+        int length = string.length();
+        int count = 0;  // the number of characters that are not white space or padding
+        boolean padded = false;
+        for (int i = 0; i < length; i++) {
+            char character = string.charAt(i);
+            if (!padded && from.decodeCharacter(character) >= 0) {
+                count++;
+            } else if (character == '=' && from.isPadded()) {
+                padded = true;  // the rest must be padding
+            } else if (!Alphabet.isWhiteSpace(character)) {
+                throw new NumberFormatException("Attempted to transcode a string with an invalid character: " + string);
+            }
+        }
+        long bits = (long) count * from.bitsPerCharacter();
+        if (bits % 8 >= from.bitsPerCharacter()) {
+            // no number of bytes encodes to this length
+            throw new NumberFormatException("Attempted to transcode an invalid number of characters: " + count);
+        }
+        return (int) (bits / 8);
+    }
+
+
+    static private Alphabet alphabetFor(Codec codec) {
+        if (codec == Base02Utils.codec) return Base02Utils.alphabet;
+        if (codec == Base16Utils.codec) return Base16Utils.alphabet;
+        if (codec == Base32Utils.codec) return Base32Utils.alphabet;
+        if (codec instanceof Base64Utils.Variant) return ((Base64Utils.Variant) codec).alphabet;
+        if (codec instanceof AlphabetCodec) return ((AlphabetCodec) codec).alphabet;
+        throw new IllegalArgumentException("There is no transcoding for the codec: " + codec);
+    }
+
+}
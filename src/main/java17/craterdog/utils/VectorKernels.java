@@ -0,0 +1,191 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * This class implements the bulk kernels using the incubating Java vector API.  Each step
+ * converts as many bytes as fit in the preferred vector shape of the processor (e.g. 64 bytes
+ * of base 16 for 512 bit vectors).  The characters are validated a whole vector at a time, and a
+ * vector containing an invalid character is left to the scalar code.  Every conversion is done
+ * using lane arithmetic rather than table lookups.
+ *
+ * @author Derk Norton
+ */
+final class VectorKernels extends Kernels {
+
+    static private final VectorSpecies<Byte> bytes = ByteVector.SPECIES_PREFERRED;
+    static private final VectorSpecies<Short> shorts = ShortVector.SPECIES_PREFERRED;
+    static private final VectorSpecies<Integer> ints = IntVector.SPECIES_PREFERRED;
+    static private final VectorSpecies<Long> longs = LongVector.SPECIES_PREFERRED;
+
+    // gathers each block of 3 bytes into the low order bytes of a long lane (little endian)
+    static private final VectorShuffle<Byte> spread;
+
+    // gathers the 3 decoded bytes in the low order bytes of each long lane into consecutive lanes
+    static private final VectorShuffle<Byte> gather;
+    static private final VectorMask<Byte> gathered;
+
+    static {
+        int[] spreadIndexes = new int[bytes.length()];
+        int[] gatherIndexes = new int[bytes.length()];
+        for (int block = 0; block < longs.length(); block++) {
+            spreadIndexes[block * 8] = block * 3 + 2;
+            spreadIndexes[block * 8 + 1] = block * 3 + 1;
+            spreadIndexes[block * 8 + 2] = block * 3;
+            gatherIndexes[block * 3] = block * 8 + 2;
+            gatherIndexes[block * 3 + 1] = block * 8 + 1;
+            gatherIndexes[block * 3 + 2] = block * 8;
+        }
+        spread = VectorShuffle.fromArray(bytes, spreadIndexes, 0);
+        gather = VectorShuffle.fromArray(bytes, gatherIndexes, 0);
+        gathered = bytes.indexInRange(0, longs.length() * 3);
+    }
+
+
+    /**
+     * This constructor makes sure that the processor supports vectors that are wide enough to
+     * be worth using.
+     */
+    VectorKernels() {
+        if (longs.length() < 2) throw new UnsupportedOperationException("The vectors are too narrow.");
+    }
+
+
+    // Each byte is widened to an int lane holding its two characters (little endian):
+    // lane:  first character | second character << 16
+    @Override
+    int encodeBase16(byte[] source, int offset, int length, char[] chars, int index) {
+        int step = bytes.length();
+        int count = length - length % step;
+        for (int i = offset; i < offset + count; i += step) {
+            ByteVector vector = ByteVector.fromArray(bytes, source, i);
+            for (int part = 0; part < 4; part++) {
+                IntVector lane = ((IntVector) vector.convertShape(VectorOperators.B2I, ints, part)).and(0xFF);
+                IntVector first = lane.lanewise(VectorOperators.LSHR, 4);
+                IntVector second = lane.and(0x0F);
+                first = first.add('0').add(7, first.compare(VectorOperators.GT, 9));
+                second = second.add('0').add(7, second.compare(VectorOperators.GT, 9));
+                first.or(second.lanewise(VectorOperators.LSHL, 16)).reinterpretAsShorts().intoCharArray(chars, index);
+                index += shorts.length();
+            }
+        }
+        return count;
+    }
+
+
+    @Override
+    int decodeBase16(char[] chars, int offset, int length, byte[] destination, int index) {
+        int step = shorts.length() * 4;
+        int end = offset + length - length % step;
+        int i = offset;
+        while (i < end) {
+            ByteVector result = ByteVector.zero(bytes);
+            for (int part = 0; part < 4; part++) {
+                ShortVector character = ShortVector.fromCharArray(shorts, chars, i + part * shorts.length());
+                VectorMask<Short> digit = character.compare(VectorOperators.GE, (short) '0')
+                        .and(character.compare(VectorOperators.LE, (short) '9'));
+                VectorMask<Short> letter = character.compare(VectorOperators.GE, (short) 'A')
+                        .and(character.compare(VectorOperators.LE, (short) 'F'));
+                if (!digit.or(letter).allTrue()) return i - offset;
+                ShortVector nibble = character.sub((short) '0').sub((short) 7, letter);
+                IntVector pair = nibble.reinterpretAsInts();
+                IntVector lane = pair.lanewise(VectorOperators.LSHL, 4).and(0xF0).or(pair.lanewise(VectorOperators.LSHR, 16));
+                result = result.or(lane.convertShape(VectorOperators.I2B, bytes, -part));
+            }
+            result.intoArray(destination, index);
+            index += bytes.length();
+            i += step;
+        }
+        return i - offset;
+    }
+
+
+    // Each block of 3 bytes is spread into a long lane holding its four characters:
+    // lane:  first | second << 16 | third << 32 | fourth << 48
+    @Override
+    int encodeBase64(byte[] source, int offset, int length, char[] chars, int index, char[] characters) {
+        short sixtySecond = (short) characters[62];
+        short sixtyThird = (short) characters[63];
+        int step = longs.length() * 3;
+        int end = offset + length - bytes.length();  // the loads read a whole vector of bytes
+        int i = offset;
+        while (i <= end) {
+            LongVector block = ByteVector.fromArray(bytes, source, i).rearrange(spread).reinterpretAsLongs();
+            LongVector lane = block.lanewise(VectorOperators.LSHR, 18).and(0x3F)
+                    .or(block.lanewise(VectorOperators.LSHR, 12).and(0x3F).lanewise(VectorOperators.LSHL, 16))
+                    .or(block.lanewise(VectorOperators.LSHR, 6).and(0x3F).lanewise(VectorOperators.LSHL, 32))
+                    .or(block.and(0x3F).lanewise(VectorOperators.LSHL, 48));
+            ShortVector chunk = lane.reinterpretAsShorts();
+            ShortVector character = chunk.add((short) 'A')
+                    .add((short) ('a' - 'A' - 26), chunk.compare(VectorOperators.GE, (short) 26))
+                    .sub((short) ('a' - '0' + 26), chunk.compare(VectorOperators.GE, (short) 52))
+                    .blend(sixtySecond, chunk.compare(VectorOperators.EQ, (short) 62))
+                    .blend(sixtyThird, chunk.compare(VectorOperators.EQ, (short) 63));
+            character.intoCharArray(chars, index);
+            index += shorts.length();
+            i += step;
+        }
+        return i - offset;
+    }
+
+
+    @Override
+    int decodeBase64(char[] chars, int offset, int length, byte[] destination, int index) {
+        int step = shorts.length();
+        int end = offset + length - length % step;
+        int limit = index + (length / 4 - 1) * 3 - bytes.length();  // the last whole vector store
+        int i = offset;
+        while (i < end) {
+            ShortVector character = ShortVector.fromCharArray(shorts, chars, i);
+            VectorMask<Short> upper = character.compare(VectorOperators.GE, (short) 'A')
+                    .and(character.compare(VectorOperators.LE, (short) 'Z'));
+            VectorMask<Short> lower = character.compare(VectorOperators.GE, (short) 'a')
+                    .and(character.compare(VectorOperators.LE, (short) 'z'));
+            VectorMask<Short> digit = character.compare(VectorOperators.GE, (short) '0')
+                    .and(character.compare(VectorOperators.LE, (short) '9'));
+            VectorMask<Short> plus = character.compare(VectorOperators.EQ, (short) '+')
+                    .or(character.compare(VectorOperators.EQ, (short) '-'));
+            VectorMask<Short> slash = character.compare(VectorOperators.EQ, (short) '/')
+                    .or(character.compare(VectorOperators.EQ, (short) '_'));
+            if (!upper.or(lower).or(digit).or(plus).or(slash).allTrue()) break;
+            ShortVector chunk = character.sub((short) 'A', upper)
+                    .sub((short) ('a' - 26), lower)
+                    .add((short) (52 - '0'), digit)
+                    .blend((short) 62, plus)
+                    .blend((short) 63, slash);
+            LongVector lane = chunk.reinterpretAsLongs();
+            LongVector block = lane.and(0x3F).lanewise(VectorOperators.LSHL, 18)
+                    .or(lane.lanewise(VectorOperators.LSHR, 16).and(0x3F).lanewise(VectorOperators.LSHL, 12))
+                    .or(lane.lanewise(VectorOperators.LSHR, 32).and(0x3F).lanewise(VectorOperators.LSHL, 6))
+                    .or(lane.lanewise(VectorOperators.LSHR, 48).and(0x3F));
+            ByteVector result = block.reinterpretAsBytes().rearrange(gather);
+            if (index <= limit) {
+                // the extra bytes will be overwritten by the next step
+                result.intoArray(destination, index);
+            } else {
+                result.intoArray(destination, index, gathered);
+            }
+            index += longs.length() * 3;
+            i += step;
+        }
+        return i - offset;
+    }
+
+}
@@ -0,0 +1,177 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class performs unit tests on the <code>AlphabetCodec</code> class.
+ *
+ * @author Derk Norton
+ */
+public class AlphabetCodecTest {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(AlphabetCodecTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running AlphabetCodec Unit Tests...\n");
+    }
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("Completed AlphabetCodec Unit Tests.\n");
+    }
+
+    /**
+     * This method verifies that codecs built using the alphabets of the built-in number bases
+     * match those number bases.
+     */
+    @Test
+    public void testBuiltInAlphabets() {
+        logger.info("Beginning testBuiltInAlphabets()...");
+
+        AlphabetCodec base02 = new AlphabetCodec.Builder("01").build();
+        AlphabetCodec base16 = new AlphabetCodec.Builder("0123456789ABCDEF").build();
+        AlphabetCodec base32 = new AlphabetCodec.Builder("0123456789ABCDFGHJKLMNPQRSTVWXYZ").build();
+        AlphabetCodec base64 = new AlphabetCodec.Builder(
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/").padded().build();
+        for (int i = 0; i < 200; i++) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            assertEquals(Base02Utils.encode(bytes, "  "), base02.encode(bytes, "  "));
+            assertEquals(Base16Utils.encode(bytes, "  "), base16.encode(bytes, "  "));
+            assertEquals(Base32Utils.encode(bytes, "  "), base32.encode(bytes, "  "));
+            assertEquals(Base64Utils.encode(bytes, "  "), base64.encode(bytes, "  "));
+            assertTrue(Arrays.equals(bytes, base02.decode(base02.encode(bytes, "  "))));
+            assertTrue(Arrays.equals(bytes, base16.decode(base16.encode(bytes, "  "))));
+            assertTrue(Arrays.equals(bytes, base32.decode(base32.encode(bytes, "  "))));
+            assertTrue(Arrays.equals(bytes, base64.decode(base64.encode(bytes, "  "))));
+        }
+
+        logger.info("Completed testBuiltInAlphabets().\n");
+    }
+
+    /**
+     * This method tests round-trip conversions for each size of alphabet, with and without
+     * padding, through the codec functions.
+     */
+    @Test
+    public void testRoundTripConversions() {
+        logger.info("Beginning testRoundTripConversions()...");
+
+        String characters = "ZYXWVUTSRQPONMLKJIHGFEDCBAzyxwvutsrqponmlkjihgfedcba9876543210_-";
+        char[] chars = new char[3000];
+        byte[] decoded = new byte[300];
+        for (int size = 2; size <= 64; size *= 2) {
+            for (int padded = 0; padded < 2; padded++) {
+                logger.info("  Testing " + size + " characters" + (padded == 1 ? " with padding..." : "..."));
+                AlphabetCodec.Builder builder = new AlphabetCodec.Builder(characters.substring(0, size));
+                AlphabetCodec codec = (padded == 1 ? builder.padded() : builder).build();
+                for (int i = 0; i < 200; i++) {
+                    byte[] bytes = RandomUtils.generateRandomBytes(i);
+                    int length = codec.encode(bytes, 0, i, chars, 3);
+                    assertEquals(codec.encodedLength(i), length);
+                    assertEquals(codec.encode(bytes, null, chars.length), new String(chars, 3, length));
+                    assertEquals(i, codec.decodedLength(chars, 3, length));
+                    assertEquals(i, codec.decode(chars, 3, length, decoded, 5));
+                    assertTrue(Arrays.equals(bytes, Arrays.copyOfRange(decoded, 5, 5 + i)));
+                }
+            }
+        }
+
+        logger.info("Completed testRoundTripConversions().\n");
+    }
+
+    /**
+     * This method verifies the predefined codecs against known values.
+     */
+    @Test
+    public void testKnownValues() {
+        logger.info("Beginning testKnownValues()...");
+
+        String[] inputs = { "", "f", "fo", "foo", "foob", "fooba", "foobar" };
+        String[] base32 = { "", "MY======", "MZXQ====", "MZXW6===", "MZXW6YQ=", "MZXW6YTB", "MZXW6YTBOI======" };
+        String[] base32hex = { "", "CO======", "CPNG====", "CPNMU===", "CPNMUOG=", "CPNMUOJ1", "CPNMUOJ1E8======" };
+        for (int i = 0; i < inputs.length; i++) {
+            byte[] bytes = inputs[i].getBytes(StandardCharsets.US_ASCII);
+            assertEquals(base32[i], AlphabetCodec.RFC4648_BASE32.encode(bytes));
+            assertEquals(base32hex[i], AlphabetCodec.RFC4648_BASE32_HEX.encode(bytes));
+            assertTrue(Arrays.equals(bytes, AlphabetCodec.RFC4648_BASE32.decode(base32[i])));
+            assertTrue(Arrays.equals(bytes, AlphabetCodec.RFC4648_BASE32_HEX.decode(base32hex[i])));
+        }
+
+        byte[] bytes = AlphabetCodec.CROCKFORD_BASE32.decode("16JK");
+        assertTrue(Arrays.equals(bytes, AlphabetCodec.CROCKFORD_BASE32.decode("i6jk")));
+        assertTrue(Arrays.equals(bytes, AlphabetCodec.CROCKFORD_BASE32.decode("l6Jk")));
+        assertTrue(Arrays.equals(AlphabetCodec.CROCKFORD_BASE32.decode("00"), AlphabetCodec.CROCKFORD_BASE32.decode("oO")));
+
+        logger.info("  Ignoring the case of aliases added first...");
+        AlphabetCodec crockford = new AlphabetCodec.Builder("0123456789ABCDEFGHJKMNPQRSTVWXYZ")
+                .withAlias('O', '0').withAlias('I', '1').withAlias('L', '1').ignoringCase().build();
+        assertTrue(Arrays.equals(bytes, crockford.decode("i6jk")));
+        assertTrue(Arrays.equals(bytes, crockford.decode("l6Jk")));
+        assertTrue(Arrays.equals(crockford.decode("00"), crockford.decode("oO")));
+
+        logger.info("Completed testKnownValues().\n");
+    }
+
+    /**
+     * This method verifies that strings can be transcoded to and from custom alphabets.
+     */
+    @Test
+    public void testTranscoding() {
+        logger.info("Beginning testTranscoding()...");
+
+        Transcoder toCrockford = Transcoder.between(Base16Utils.codec, AlphabetCodec.CROCKFORD_BASE32);
+        Transcoder fromZBase32 = Transcoder.between(AlphabetCodec.Z_BASE32, Base64Utils.codec);
+        for (int i = 0; i < 100; i++) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            assertEquals(AlphabetCodec.CROCKFORD_BASE32.encode(bytes), toCrockford.transcode(Base16Utils.encode(bytes)));
+            assertEquals(Base64Utils.encode(bytes), fromZBase32.transcode(AlphabetCodec.Z_BASE32.encode(bytes)));
+        }
+
+        logger.info("Completed testTranscoding().\n");
+    }
+
+    /**
+     * This method verifies that an alphabet whose size is not a power of two is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAlphabet() {
+        logger.info("Beginning testInvalidAlphabet()...");
+        new AlphabetCodec.Builder("123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz").build();
+    }
+
+    /**
+     * This method verifies that strings with invalid characters are rejected.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidCharacter() {
+        logger.info("Beginning testInvalidCharacter()...");
+        AlphabetCodec.RFC4648_BASE32.decode("MZXW1YTB");
+    }
+
+}
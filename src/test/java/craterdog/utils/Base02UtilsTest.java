@@ -9,9 +9,18 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.BitSet;
 import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
@@ -168,4 +177,189 @@ public class Base02UtilsTest {
         logger.info("Completed testWrapping().\n");
     }
 
+
+    /**
+     * This method verifies that white space is skipped anywhere in a string unless it
+     * is decoded strictly.
+     */
+    @Test
+    public void testWhiteSpace() {
+        logger.info("Beginning testWhiteSpace()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(200);
+        String compact = Base02Utils.encode(bytes).replace("\n", "");
+        assertTrue(Arrays.equals(bytes, Base02Utils.decodeStrict(compact)));
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < compact.length(); i++) {
+            if (i % 7 == 0) builder.append(" \t\r\n");
+            builder.append(compact.charAt(i));
+        }
+        String formatted = builder.toString();
+        assertTrue(Arrays.equals(bytes, Base02Utils.decode(formatted)));
+
+        try {
+            Base02Utils.decodeStrict(formatted);
+            fail("White space should have been rejected.");
+        } catch (NumberFormatException e) {
+            logger.info("  White space was rejected as expected.");
+        }
+
+        logger.info("Completed testWhiteSpace().\n");
+    }
+
+
+    /**
+     * This method verifies that the buffer based functions match the encode and decode
+     * functions for both heap and direct buffers, when called repeatedly with small buffers.
+     */
+    @Test
+    public void testBuffers() {
+        logger.info("Beginning testBuffers()...");
+
+        for (int i = 0; i < 200; i++) {
+            logger.info("  Buffering " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base02Utils.encode(bytes).replace("\n", "");
+
+            ByteBuffer source = ByteBuffer.wrap(bytes);
+            CharBuffer characters = CharBuffer.allocate(expected.length());
+            Base02Utils.encode(source, characters);
+            assertFalse(source.hasRemaining());
+            assertEquals(expected, characters.flip().toString());
+
+            source = ByteBuffer.allocateDirect(i);
+            source.put(bytes).flip();
+            ByteBuffer ascii = ByteBuffer.allocateDirect(expected.length());
+            ByteBuffer chunk = ByteBuffer.allocateDirect(16);
+            while (source.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base02Utils.encode(source, chunk) > 0);
+                ascii.put((ByteBuffer) chunk.flip());
+            }
+            ascii.flip();
+            byte[] encoded = new byte[ascii.remaining()];
+            ascii.get(encoded);
+            assertEquals(expected, new String(encoded, StandardCharsets.US_ASCII));
+
+            CharBuffer input = CharBuffer.wrap(expected);
+            ByteBuffer decoded = ByteBuffer.allocateDirect(i);
+            chunk = ByteBuffer.allocateDirect(3);
+            while (input.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base02Utils.decode(input, chunk) > 0);
+                decoded.put((ByteBuffer) chunk.flip());
+            }
+            decoded.flip();
+            byte[] result = new byte[decoded.remaining()];
+            decoded.get(result);
+            assertTrue(Arrays.equals(bytes, result));
+        }
+
+        logger.info("Completed testBuffers().\n");
+    }
+
+
+    /**
+     * This method verifies that characters that are not base 2 are rejected even when they
+     * look like base 2 characters in their low order byte.
+     */
+    @Test
+    public void testInvalidCharacters() {
+        logger.info("Beginning testInvalidCharacters()...");
+
+        String valid = "0110100110010110";
+        assertTrue(Arrays.equals(new byte[] { 0x69, (byte) 0x96 }, Base02Utils.decodeStrict(valid)));
+        char[] invalid = { '2', '/', 'a', ' ', '\u0130', '\u0131', '\uFF10' };
+        for (char character : invalid) {
+            for (int i = 0; i < valid.length(); i++) {
+                String string = valid.substring(0, i) + character + valid.substring(i + 1);
+                try {
+                    Base02Utils.decodeStrict(string);
+                    fail("An invalid character was decoded: " + string);
+                } catch (NumberFormatException e) {
+                    // expected
+                }
+                char[] chars = string.toCharArray();
+                try {
+                    Base02Utils.codec.decode(chars, 0, chars.length, new byte[2], 0);
+                    fail("An invalid character was decoded: " + string);
+                } catch (NumberFormatException e) {
+                    // expected
+                }
+            }
+        }
+
+        logger.info("Completed testInvalidCharacters().\n");
+    }
+
+
+    /**
+     * This method verifies the conversions between base 2 strings and bit sets and arrays of
+     * longs.
+     */
+    @Test
+    public void testBitsAndWords() {
+        logger.info("Beginning testBitsAndWords()...");
+
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(3);
+        bits.set(9);
+        bits.set(20);  // beyond the encoded length
+        String encoded = Base02Utils.encode(bits, 16);
+        assertEquals("1001000001000000", encoded);
+        bits.clear(20);
+        assertEquals(bits, Base02Utils.decodeToBitSet(encoded));
+
+        for (int i = 0; i < 50; i++) {
+            bits = BitSet.valueOf(RandomUtils.generateRandomBytes(i));
+            encoded = Base02Utils.encode(bits, i * 8);
+            for (int j = 0; j < i * 8; j++) {
+                assertEquals(bits.get(j) ? '1' : '0', encoded.replace("\n", "").charAt(j));
+            }
+            assertEquals(bits, Base02Utils.decodeToBitSet(encoded));
+        }
+
+        long[] words = { 0L, -1L, 1L, Long.MIN_VALUE, 0x0123456789ABCDEFL };
+        encoded = Base02Utils.encode(words);
+        assertEquals(String.format("%64s", Long.toBinaryString(0x0123456789ABCDEFL)).replace(' ', '0'),
+                encoded.replace("\n", "").substring(256));
+        assertTrue(Arrays.equals(words, Base02Utils.decodeToLongs(encoded)));
+
+        logger.info("Completed testBitsAndWords().\n");
+    }
+
+
+    /**
+     * This method verifies that encoding into an appendable matches the encode functions.
+     *
+     * @throws IOException The characters could not be appended.
+     */
+    @Test
+    public void testAppendable() throws IOException {
+        logger.info("Beginning testAppendable()...");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i += 61) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base02Utils.encode(bytes, "    ", 60);
+
+            builder.setLength(0);
+            builder.append("prefix:");
+            Base02Utils.encode(bytes, "    ", 60, builder);
+            assertEquals("prefix:" + expected, builder.toString());
+
+            StringWriter writer = new StringWriter();
+            Base02Utils.encode(bytes, writer);
+            assertEquals(Base02Utils.encode(bytes), writer.toString());
+
+            CharBuffer buffer = CharBuffer.allocate(expected.length());
+            Base02Utils.encode(bytes, "    ", 60, buffer);
+            assertEquals(expected, new String(buffer.array()));
+        }
+
+        logger.info("Completed testAppendable().\n");
+    }
+
 }
@@ -9,9 +9,20 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
@@ -168,4 +179,388 @@ public class Base16UtilsTest {
         logger.info("Completed testWrapping().\n");
     }
 
+
+    /**
+     * This method verifies that white space is skipped anywhere in a string unless it
+     * is decoded strictly.
+     */
+    @Test
+    public void testWhiteSpace() {
+        logger.info("Beginning testWhiteSpace()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(200);
+        String compact = Base16Utils.encode(bytes).replace("\n", "");
+        assertTrue(Arrays.equals(bytes, Base16Utils.decodeStrict(compact)));
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < compact.length(); i++) {
+            if (i % 7 == 0) builder.append(" \t\r\n");
+            builder.append(compact.charAt(i));
+        }
+        String formatted = builder.toString();
+        assertTrue(Arrays.equals(bytes, Base16Utils.decode(formatted)));
+
+        try {
+            Base16Utils.decodeStrict(formatted);
+            fail("White space should have been rejected.");
+        } catch (NumberFormatException e) {
+            logger.info("  White space was rejected as expected.");
+        }
+
+        logger.info("Completed testWhiteSpace().\n");
+    }
+
+
+    /**
+     * This method verifies that the buffer based functions match the encode and decode
+     * functions for both heap and direct buffers, when called repeatedly with small buffers.
+     */
+    @Test
+    public void testBuffers() {
+        logger.info("Beginning testBuffers()...");
+
+        for (int i = 0; i < 200; i++) {
+            logger.info("  Buffering " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base16Utils.encode(bytes).replace("\n", "");
+
+            ByteBuffer source = ByteBuffer.wrap(bytes);
+            CharBuffer characters = CharBuffer.allocate(expected.length());
+            Base16Utils.encode(source, characters);
+            assertFalse(source.hasRemaining());
+            assertEquals(expected, characters.flip().toString());
+
+            source = ByteBuffer.allocateDirect(i);
+            source.put(bytes).flip();
+            ByteBuffer ascii = ByteBuffer.allocateDirect(expected.length());
+            ByteBuffer chunk = ByteBuffer.allocateDirect(16);
+            while (source.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base16Utils.encode(source, chunk) > 0);
+                ascii.put((ByteBuffer) chunk.flip());
+            }
+            ascii.flip();
+            byte[] encoded = new byte[ascii.remaining()];
+            ascii.get(encoded);
+            assertEquals(expected, new String(encoded, StandardCharsets.US_ASCII));
+
+            CharBuffer input = CharBuffer.wrap(expected);
+            ByteBuffer decoded = ByteBuffer.allocateDirect(i);
+            chunk = ByteBuffer.allocateDirect(3);
+            while (input.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base16Utils.decode(input, chunk) > 0);
+                decoded.put((ByteBuffer) chunk.flip());
+            }
+            decoded.flip();
+            byte[] result = new byte[decoded.remaining()];
+            decoded.get(result);
+            assertTrue(Arrays.equals(bytes, result));
+        }
+
+        logger.info("Completed testBuffers().\n");
+    }
+
+
+    /**
+     * This method verifies that the streaming encoder and decoder match the
+     * encode and decode functions no matter how the bytes are chunked.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreaming() throws IOException {
+        logger.info("Beginning testStreaming()...");
+
+        for (int i = 0; i < 1000; i += 7) {
+            logger.info("  Streaming " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base16Utils.encode(bytes, "    ");
+
+            StringWriter writer = new StringWriter();
+            try (OutputStream output = new Base16OutputStream(writer, "    ")) {
+                int index = 0;
+                while (index < i) {
+                    int length = Math.min(RandomUtils.pickRandomIndex(100), i - index);
+                    output.write(bytes, index, length);
+                    index += length;
+                }
+            }
+            assertEquals(expected, writer.toString());
+
+            byte[] decoded = new byte[i];
+            try (InputStream input = new Base16InputStream(new StringReader(expected))) {
+                int index = 0;
+                int length;
+                while ((length = input.read(decoded, index, Math.min(1 + RandomUtils.pickRandomIndex(100), i - index))) > 0) {
+                    index += length;
+                }
+                assertEquals(i, index);
+                assertEquals(-1, input.read());
+            }
+            assertTrue(Arrays.equals(decoded, bytes));
+        }
+
+        logger.info("Completed testStreaming().\n");
+    }
+
+    /**
+     * This method verifies that the streaming encoder formats its lines exactly like the
+     * encode function for any line width.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreamingLineWidths() throws IOException {
+        logger.info("Beginning testStreamingLineWidths()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(500);
+        int[] lineWidths = { 1, 7, 64, 76, 80, 81, 1000 };
+        for (int lineWidth : lineWidths) {
+            logger.info("  Streaming with a line width of " + lineWidth + "...");
+            String expected = Base16Utils.encode(bytes, "  ", lineWidth);
+            StringWriter writer = new StringWriter();
+            try (OutputStream output = new Base16OutputStream(writer, "  ", lineWidth)) {
+                output.write(bytes, 0, 123);
+                for (int i = 123; i < 200; i++) output.write(bytes[i]);
+                output.write(bytes, 200, 300);
+            }
+            assertEquals(expected, writer.toString());
+        }
+
+        logger.info("Completed testStreamingLineWidths().\n");
+    }
+
+
+    /**
+     * This method verifies the layout of the wrapped lines.
+     */
+    @Test
+    public void testLineFormat() {
+        logger.info("Beginning testLineFormat()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(100);
+        String encoded = Base16Utils.encode(bytes, "    ");
+        String[] lines = encoded.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(84, lines[0].length());
+        assertEquals(84, lines[1].length());
+        assertEquals(44, lines[2].length());
+        for (String line : lines) {
+            assertTrue(line.startsWith("    "));
+        }
+        assertTrue(Arrays.equals(bytes, Base16Utils.decode(encoded)));
+
+        logger.info("Completed testLineFormat().\n");
+    }
+
+
+    /**
+     * This method verifies that long compact strings, which may be converted a whole vector
+     * at a time, match the buffer based functions and that invalid characters are still found.
+     */
+    @Test
+    public void testLongValues() {
+        logger.info("Beginning testLongValues()...");
+
+        for (int i = 0; i < 1000; i += 13) {
+            logger.info("  Converting " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            CharBuffer expected = CharBuffer.allocate(i * 2);
+            Base16Utils.encode(ByteBuffer.wrap(bytes), expected);
+            char[] chars = new char[i * 2];
+            assertEquals(chars.length, Base16Utils.codec.encode(bytes, 0, i, chars, 0));
+            assertEquals(expected.flip().toString(), new String(chars));
+
+            byte[] decoded = new byte[i];
+            assertEquals(i, Base16Utils.codec.decode(chars, 0, chars.length, decoded, 0));
+            assertTrue(Arrays.equals(bytes, decoded));
+            assertTrue(Arrays.equals(bytes, Base16Utils.decodeStrict(new String(chars))));
+
+            if (i > 0) {
+                chars[RandomUtils.pickRandomIndex(chars.length)] = 'G';
+                try {
+                    Base16Utils.decodeStrict(new String(chars));
+                    fail("An invalid character was decoded.");
+                } catch (NumberFormatException e) {
+                    // expected
+                }
+            }
+        }
+
+        logger.info("Completed testLongValues().\n");
+    }
+
+
+    /**
+     * This method verifies that invalid characters are rejected.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidCharacter() {
+        logger.info("Beginning testInvalidCharacter()...");
+        Base16Utils.decode("0123456789ABCDEG");
+    }
+
+
+    /**
+     * This method verifies that the validation functions agree with the decode function
+     * without decoding or throwing exceptions.
+     */
+    @Test
+    public void testValidation() {
+        logger.info("Beginning testValidation()...");
+
+        assertTrue(Base16Utils.isValid("0123 4567\n89AB"));
+        assertEquals(6, Base16Utils.decodedLength("0123 4567\n89AB"));
+        byte[] bytes = new byte[6 + 1];
+        assertEquals(6, Base16Utils.tryDecode("0123 4567\n89AB", bytes, 1));
+        assertTrue(Arrays.equals(Base16Utils.decode("0123 4567\n89AB"), Arrays.copyOfRange(bytes, 1, bytes.length)));
+
+        assertFalse(Base16Utils.isValid("01G3"));
+        assertEquals(-1, Base16Utils.decodedLength("01G3"));
+        assertEquals(-(2 + 1), Base16Utils.tryDecode("01G3", bytes, 0));
+        assertEquals(-(3 + 1), Base16Utils.tryDecode("012", bytes, 0));
+
+        String characters = "0123456789ABCDEF";
+        for (int i = 0; i < 100; i++) {
+            StringBuilder string = new StringBuilder();
+            int length = RandomUtils.pickRandomIndex(20);
+            for (int j = 0; j < length; j++) {
+                if (RandomUtils.pickRandomIndex(40) == 0) {
+                    string.append("GXZ=#".charAt(RandomUtils.pickRandomIndex(5)));
+                } else {
+                    string.append(characters.charAt(RandomUtils.pickRandomIndex(characters.length())));
+                }
+            }
+            int expected;
+            try {
+                expected = Base16Utils.decode(string.toString()).length;
+            } catch (NumberFormatException e) {
+                expected = -1;
+            }
+            assertEquals(expected >= 0, Base16Utils.isValid(string));
+            assertEquals(expected, Base16Utils.decodedLength(string));
+        }
+
+        logger.info("Completed testValidation().\n");
+    }
+
+
+    /**
+     * This method verifies that the ASCII functions match the string based functions exactly.
+     */
+    @Test
+    public void testAscii() {
+        logger.info("Beginning testAscii()...");
+
+        for (int i = 0; i < 300; i += 11) {
+            logger.info("  Converting " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base16Utils.encode(bytes);
+            byte[] ascii = Base16Utils.encodeToAscii(bytes);
+            assertTrue(Arrays.equals(expected.getBytes(StandardCharsets.US_ASCII), ascii));
+            assertTrue(Arrays.equals(bytes, Base16Utils.decodeFromAscii(ascii)));
+
+            expected = Base16Utils.encode(bytes, "  ", 30);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length() + 2);
+            buffer.put((byte) '[');
+            assertEquals(expected.length(), Base16Utils.encodeToAscii(bytes, "  ", 30, buffer));
+            buffer.put((byte) ']').flip();
+            byte[] result = new byte[buffer.remaining()];
+            buffer.get(result);
+            assertEquals("[" + expected + "]", new String(result, StandardCharsets.US_ASCII));
+
+            buffer.position(1).limit(buffer.limit() - 1);
+            assertTrue(Arrays.equals(bytes, Base16Utils.decodeFromAscii(buffer)));
+            assertEquals(buffer.limit(), buffer.position());
+            assertTrue(Arrays.equals(bytes, Base16Utils.decodeFromAscii(result, 1, result.length - 2)));
+        }
+
+        logger.info("  Converting several chunks of characters...");
+        byte[] bytes = RandomUtils.generateRandomBytes(9000);
+        byte[] chunks = Base16Utils.encodeToAscii(bytes);
+        assertTrue(Arrays.equals(bytes, Base16Utils.decodeFromAscii(chunks)));
+        assertTrue(Arrays.equals(bytes, Base16Utils.decode(Base16Utils.encode(bytes, null, Integer.MAX_VALUE))));
+        chunks[chunks.length - 100] = (byte) '*';  // an invalid character in the last chunk
+        try {
+            Base16Utils.decodeFromAscii(chunks);
+            fail("An invalid character in the last chunk was decoded.");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+
+        byte[] ascii = Base16Utils.encodeToAscii(RandomUtils.generateRandomBytes(10));
+        ascii[3] = (byte) 0xC1;  // not an ASCII character
+        try {
+            Base16Utils.decodeFromAscii(ascii);
+            fail("A byte that is not ASCII was decoded.");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+
+        logger.info("Completed testAscii().\n");
+    }
+
+
+    /**
+     * This method verifies that encoding into an appendable matches the encode functions.
+     *
+     * @throws IOException The characters could not be appended.
+     */
+    @Test
+    public void testAppendable() throws IOException {
+        logger.info("Beginning testAppendable()...");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i += 61) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base16Utils.encode(bytes, "    ", 60);
+
+            builder.setLength(0);
+            builder.append("prefix:");
+            Base16Utils.encode(bytes, "    ", 60, builder);
+            assertEquals("prefix:" + expected, builder.toString());
+
+            StringWriter writer = new StringWriter();
+            Base16Utils.encode(bytes, writer);
+            assertEquals(Base16Utils.encode(bytes), writer.toString());
+
+            CharBuffer buffer = CharBuffer.allocate(expected.length());
+            Base16Utils.encode(bytes, "    ", 60, buffer);
+            assertEquals(expected, new String(buffer.array()));
+        }
+
+        logger.info("Completed testAppendable().\n");
+    }
+
+
+    /**
+     * This method verifies that ASCII characters decoded in place match the decode function.
+     */
+    @Test
+    public void testDecodeInPlace() {
+        logger.info("Beginning testDecodeInPlace()...");
+
+        for (int i = 0; i < 500; i += 7) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            byte[] ascii = Base16Utils.encode(bytes, "  ").getBytes(StandardCharsets.US_ASCII);
+            byte[] buffer = new byte[ascii.length + 10];
+            System.arraycopy(ascii, 0, buffer, 5, ascii.length);
+            int length = Base16Utils.decodeInPlace(buffer, 5, ascii.length);
+            assertEquals(i, length);
+            assertTrue(Arrays.equals(bytes, Arrays.copyOfRange(buffer, 5, 5 + length)));
+        }
+
+        try {
+            byte[] ascii = "  0F1G".getBytes(StandardCharsets.US_ASCII);
+            Base16Utils.decodeInPlace(ascii, 2, ascii.length - 2);
+            fail("An invalid character was decoded.");
+        } catch (NumberFormatException e) {
+            logger.info("  The invalid character was rejected as expected.");
+            assertEquals("Attempted to decode a character that is not base 16 at offset 5.", e.getMessage());
+        }
+
+        logger.info("Completed testDecodeInPlace().\n");
+    }
+
 }
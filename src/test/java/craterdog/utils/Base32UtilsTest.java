@@ -9,9 +9,21 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
@@ -168,4 +180,425 @@ public class Base32UtilsTest {
         logger.info("Completed testWrapping().\n");
     }
 
+
+    /**
+     * This method verifies that white space is skipped anywhere in a string unless it
+     * is decoded strictly.
+     */
+    @Test
+    public void testWhiteSpace() {
+        logger.info("Beginning testWhiteSpace()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(200);
+        String compact = Base32Utils.encode(bytes).replace("\n", "");
+        assertTrue(Arrays.equals(bytes, Base32Utils.decodeStrict(compact)));
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < compact.length(); i++) {
+            if (i % 7 == 0) builder.append(" \t\r\n");
+            builder.append(compact.charAt(i));
+        }
+        String formatted = builder.toString();
+        assertTrue(Arrays.equals(bytes, Base32Utils.decode(formatted)));
+
+        try {
+            Base32Utils.decodeStrict(formatted);
+            fail("White space should have been rejected.");
+        } catch (NumberFormatException e) {
+            logger.info("  White space was rejected as expected.");
+        }
+
+        logger.info("Completed testWhiteSpace().\n");
+    }
+
+
+    /**
+     * This method verifies that the buffer based functions match the encode and decode
+     * functions for both heap and direct buffers, when called repeatedly with small buffers.
+     */
+    @Test
+    public void testBuffers() {
+        logger.info("Beginning testBuffers()...");
+
+        for (int i = 0; i < 200; i++) {
+            logger.info("  Buffering " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base32Utils.encode(bytes).replace("\n", "");
+
+            ByteBuffer source = ByteBuffer.wrap(bytes);
+            CharBuffer characters = CharBuffer.allocate(expected.length());
+            Base32Utils.encode(source, characters);
+            assertFalse(source.hasRemaining());
+            assertEquals(expected, characters.flip().toString());
+
+            source = ByteBuffer.allocateDirect(i);
+            source.put(bytes).flip();
+            ByteBuffer ascii = ByteBuffer.allocateDirect(expected.length());
+            ByteBuffer chunk = ByteBuffer.allocateDirect(16);
+            while (source.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base32Utils.encode(source, chunk) > 0);
+                ascii.put((ByteBuffer) chunk.flip());
+            }
+            ascii.flip();
+            byte[] encoded = new byte[ascii.remaining()];
+            ascii.get(encoded);
+            assertEquals(expected, new String(encoded, StandardCharsets.US_ASCII));
+
+            CharBuffer input = CharBuffer.wrap(expected);
+            ByteBuffer decoded = ByteBuffer.allocateDirect(i);
+            chunk = ByteBuffer.allocateDirect(7);
+            while (input.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base32Utils.decode(input, chunk) > 0);
+                decoded.put((ByteBuffer) chunk.flip());
+            }
+            decoded.flip();
+            byte[] result = new byte[decoded.remaining()];
+            decoded.get(result);
+            assertTrue(Arrays.equals(bytes, result));
+        }
+
+        logger.info("Completed testBuffers().\n");
+    }
+
+
+    /**
+     * This method verifies that the streaming encoder and decoder match the
+     * encode and decode functions no matter how the bytes are chunked.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreaming() throws IOException {
+        logger.info("Beginning testStreaming()...");
+
+        for (int i = 0; i < 1000; i += 7) {
+            logger.info("  Streaming " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base32Utils.encode(bytes, "    ");
+
+            StringWriter writer = new StringWriter();
+            try (OutputStream output = new Base32OutputStream(writer, "    ")) {
+                int index = 0;
+                while (index < i) {
+                    int length = Math.min(RandomUtils.pickRandomIndex(100), i - index);
+                    output.write(bytes, index, length);
+                    index += length;
+                }
+            }
+            assertEquals(expected, writer.toString());
+
+            byte[] decoded = new byte[i];
+            try (InputStream input = new Base32InputStream(new StringReader(expected))) {
+                int index = 0;
+                int length;
+                while ((length = input.read(decoded, index, Math.min(1 + RandomUtils.pickRandomIndex(100), i - index))) > 0) {
+                    index += length;
+                }
+                assertEquals(i, index);
+                assertEquals(-1, input.read());
+            }
+            assertTrue(Arrays.equals(decoded, bytes));
+        }
+
+        logger.info("Completed testStreaming().\n");
+    }
+
+    /**
+     * This method verifies that the streaming encoder formats its lines exactly like the
+     * encode function for any line width.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreamingLineWidths() throws IOException {
+        logger.info("Beginning testStreamingLineWidths()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(500);
+        int[] lineWidths = { 1, 7, 64, 76, 80, 81, 1000 };
+        for (int lineWidth : lineWidths) {
+            logger.info("  Streaming with a line width of " + lineWidth + "...");
+            String expected = Base32Utils.encode(bytes, "  ", lineWidth);
+            StringWriter writer = new StringWriter();
+            try (OutputStream output = new Base32OutputStream(writer, "  ", lineWidth)) {
+                output.write(bytes, 0, 123);
+                for (int i = 123; i < 200; i++) output.write(bytes[i]);
+                output.write(bytes, 200, 300);
+            }
+            assertEquals(expected, writer.toString());
+        }
+
+        logger.info("Completed testStreamingLineWidths().\n");
+    }
+
+
+    /**
+     * This method verifies that a reused encoder and decoder match the encode and
+     * decode functions no matter how the bytes and characters are fragmented.
+     *
+     * @throws IOException The fragments could not be written to their sinks.
+     */
+    @Test
+    public void testFragments() throws IOException {
+        logger.info("Beginning testFragments()...");
+
+        Base32Encoder encoder = new Base32Encoder();
+        Base32Decoder decoder = new Base32Decoder();
+        for (int i = 0; i < 3000; i += 13) {
+            logger.info("  Fragmenting " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base32Utils.encode(bytes, "    ");
+
+            StringBuilder builder = new StringBuilder();
+            int index = 0;
+            while (index < i) {
+                int length = Math.min(RandomUtils.pickRandomIndex(100), i - index);
+                encoder.encode(bytes, index, length, builder);
+                index += length;
+            }
+            encoder.finish(builder);
+            assertEquals(expected.replaceAll("\\s", ""), builder.toString());
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            index = 0;
+            while (index < expected.length()) {
+                int length = Math.min(RandomUtils.pickRandomIndex(100), expected.length() - index);
+                decoder.decode(expected.subSequence(index, index + length), output);
+                index += length;
+            }
+            decoder.finish(output);
+            assertTrue(Arrays.equals(output.toByteArray(), bytes));
+        }
+
+        logger.info("  Decoding an invalid number of characters...");
+        try {
+            decoder.decode("CSQ", new ByteArrayOutputStream());
+            decoder.finish(new ByteArrayOutputStream());
+            fail("The decoder accepted an invalid number of characters.");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+
+        logger.info("  Decoding after a reset...");
+        decoder.decode("CSQPY", new ByteArrayOutputStream());
+        decoder.reset();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        decoder.decode("CSQP YRL1\nF8", output);
+        decoder.finish(output);
+        assertTrue(Arrays.equals(Base32Utils.decode("CSQP YRL1\nF8"), output.toByteArray()));
+
+        logger.info("Completed testFragments().\n");
+    }
+
+
+    /**
+     * This method verifies that encoded keys sort the same way as the original keys.
+     */
+    @Test
+    public void testKeyOrder() {
+        logger.info("Beginning testKeyOrder()...");
+
+        logger.info("  Comparing random keys...");
+        for (int i = 0; i < 10000; i++) {
+            byte[] first = RandomUtils.generateRandomBytes(RandomUtils.pickRandomIndex(12));
+            byte[] second = RandomUtils.generateRandomBytes(RandomUtils.pickRandomIndex(12));
+            if (RandomUtils.pickRandomIndex(2) == 0) {
+                // share a common prefix
+                System.arraycopy(first, 0, second, 0, Math.min(first.length, second.length) / 2);
+            }
+            String firstKey = Base32Utils.encodeKey(first);
+            String secondKey = Base32Utils.encodeKey(second);
+            assertEquals(ByteUtils.compareUnsigned(first, second), Base32Utils.compareKeys(firstKey, secondKey));
+            assertEquals(Integer.signum(firstKey.compareTo(secondKey)), Base32Utils.keyComparator.compare(firstKey, secondKey));
+            assertTrue(Arrays.equals(first, Base32Utils.decode(firstKey)));
+
+            // signed and unsigned comparisons agree when the high order bits are clear
+            for (int j = 0; j < first.length; j++) first[j] &= 0x7F;
+            for (int j = 0; j < second.length; j++) second[j] &= 0x7F;
+            assertEquals(ByteUtils.compare(first, second),
+                    Base32Utils.compareKeys(Base32Utils.encodeKey(first), Base32Utils.encodeKey(second)));
+        }
+
+        logger.info("  Sorting encoded long values...");
+        long[] values = new long[1000];
+        String[] keys = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ByteUtils.bytesToLong(RandomUtils.generateRandomBytes(8)) >>> (1 + RandomUtils.pickRandomIndex(63));  // positive
+            keys[i] = Base32Utils.encodeKey(ByteUtils.longToBytes(values[i]));
+            assertEquals(13, keys[i].length());
+        }
+        Arrays.sort(values);
+        Arrays.sort(keys, Base32Utils.keyComparator);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], ByteUtils.bytesToLong(Base32Utils.decode(keys[i])));
+        }
+
+        logger.info("Completed testKeyOrder().\n");
+    }
+
+
+    /**
+     * This method verifies the encoding of known byte sequences, including each
+     * possible partial block.
+     */
+    @Test
+    public void testKnownValues() {
+        logger.info("Beginning testKnownValues()...");
+
+        String[] strings = { "", "f", "fo", "foo", "foob", "fooba", "foobar" };
+        String[] expected = { "", "CR", "CSQH", "CSQPY", "CSQPYRH", "CSQPYRL1", "CSQPYRL1F8" };
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = ByteUtils.stringToBytes(strings[i]);
+            String encoded = Base32Utils.encode(bytes);
+            assertEquals(expected[i], encoded);
+            assertTrue(Arrays.equals(bytes, Base32Utils.decode(encoded)));
+        }
+
+        logger.info("Completed testKnownValues().\n");
+    }
+
+
+    /**
+     * This method verifies the layout of the wrapped lines.
+     */
+    @Test
+    public void testLineFormat() {
+        logger.info("Beginning testLineFormat()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(111);
+        String encoded = Base32Utils.encode(bytes, "  ");
+        String[] lines = encoded.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(82, lines[0].length());
+        assertEquals(82, lines[1].length());
+        assertEquals(20, lines[2].length());
+        assertTrue(Arrays.equals(bytes, Base32Utils.decode(encoded)));
+
+        logger.info("Completed testLineFormat().\n");
+    }
+
+
+    /**
+     * This method verifies that lines of any width are formatted correctly, even when a line
+     * ends in the middle of a block of characters.
+     */
+    @Test
+    public void testLineWidth() {
+        logger.info("Beginning testLineWidth()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(1234);
+        String compact = Base32Utils.encode(bytes, null, Integer.MAX_VALUE);
+        assertEquals(1975, compact.length());
+        for (int width = 1; width < 200; width += 7) {
+            logger.info("  Formatting " + width + " character lines...");
+            String encoded = Base32Utils.encode(bytes, "\t", width);
+            String[] lines = encoded.split("\n");
+            assertEquals((compact.length() + width - 1) / width, lines.length);
+            for (int i = 0; i < lines.length; i++) {
+                int start = i * width;
+                assertEquals("\t" + compact.substring(start, Math.min(start + width, compact.length())), lines[i]);
+            }
+            assertTrue(Arrays.equals(bytes, Base32Utils.decode(encoded)));
+        }
+
+        logger.info("Completed testLineWidth().\n");
+    }
+
+
+    /**
+     * This method verifies that a line width that is not positive is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLineWidth() {
+        logger.info("Beginning testInvalidLineWidth()...");
+        Base32Utils.encode(RandomUtils.generateRandomBytes(10), null, 0);
+    }
+
+
+    /**
+     * This method verifies that strings with invalid lengths are rejected.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidLength() {
+        logger.info("Beginning testInvalidLength()...");
+        Base32Utils.decode("CSQ");
+    }
+
+
+    /**
+     * This method verifies that the validation functions agree with the decode function
+     * without decoding or throwing exceptions.
+     */
+    @Test
+    public void testValidation() {
+        logger.info("Beginning testValidation()...");
+
+        assertTrue(Base32Utils.isValid("CSQP YRL1\nF8"));
+        assertEquals(6, Base32Utils.decodedLength("CSQP YRL1\nF8"));
+        byte[] bytes = new byte[6 + 1];
+        assertEquals(6, Base32Utils.tryDecode("CSQP YRL1\nF8", bytes, 1));
+        assertTrue(Arrays.equals(Base32Utils.decode("CSQP YRL1\nF8"), Arrays.copyOfRange(bytes, 1, bytes.length)));
+
+        assertFalse(Base32Utils.isValid("CSQU"));
+        assertEquals(-1, Base32Utils.decodedLength("CSQU"));
+        assertEquals(-(3 + 1), Base32Utils.tryDecode("CSQU", bytes, 0));
+        assertEquals(-(3 + 1), Base32Utils.tryDecode("CSQ", bytes, 0));
+
+        String characters = "0123456789ABCDFGHJKLMNPQRSTVWXYZ";
+        for (int i = 0; i < 100; i++) {
+            StringBuilder string = new StringBuilder();
+            int length = RandomUtils.pickRandomIndex(20);
+            for (int j = 0; j < length; j++) {
+                if (RandomUtils.pickRandomIndex(40) == 0) {
+                    string.append("EIOU=".charAt(RandomUtils.pickRandomIndex(5)));
+                } else {
+                    string.append(characters.charAt(RandomUtils.pickRandomIndex(characters.length())));
+                }
+            }
+            int expected;
+            try {
+                expected = Base32Utils.decode(string.toString()).length;
+            } catch (NumberFormatException e) {
+                expected = -1;
+            }
+            assertEquals(expected >= 0, Base32Utils.isValid(string));
+            assertEquals(expected, Base32Utils.decodedLength(string));
+        }
+
+        logger.info("Completed testValidation().\n");
+    }
+
+
+    /**
+     * This method verifies that encoding into an appendable matches the encode functions.
+     *
+     * @throws IOException The characters could not be appended.
+     */
+    @Test
+    public void testAppendable() throws IOException {
+        logger.info("Beginning testAppendable()...");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i += 61) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base32Utils.encode(bytes, "    ", 60);
+
+            builder.setLength(0);
+            builder.append("prefix:");
+            Base32Utils.encode(bytes, "    ", 60, builder);
+            assertEquals("prefix:" + expected, builder.toString());
+
+            StringWriter writer = new StringWriter();
+            Base32Utils.encode(bytes, writer);
+            assertEquals(Base32Utils.encode(bytes), writer.toString());
+
+            CharBuffer buffer = CharBuffer.allocate(expected.length());
+            Base32Utils.encode(bytes, "    ", 60, buffer);
+            assertEquals(expected, new String(buffer.array()));
+        }
+
+        logger.info("Completed testAppendable().\n");
+    }
+
 }
@@ -9,8 +9,20 @@
  ************************************************************************/
 package craterdog.utils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
@@ -167,4 +179,388 @@ public class Base64UtilsTest {
         logger.info("Completed testWrapping().\n");
     }
 
+
+    /**
+     * This method verifies the encoding of known byte sequences using each variant.
+     */
+    @Test
+    public void testVariants() {
+        logger.info("Beginning testVariants()...");
+
+        String[] strings = { "", "f", "fo", "foo", "foob", "fooba", "foobar" };
+        String[] expected = { "", "Zg==", "Zm8=", "Zm9v", "Zm9vYg==", "Zm9vYmE=", "Zm9vYmFy" };
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = ByteUtils.stringToBytes(strings[i]);
+            assertEquals(expected[i], Base64Utils.encode(bytes));
+            assertEquals(expected[i].replace("=", ""), Base64Utils.encode(bytes, Base64Utils.Variant.STANDARD_UNPADDED));
+            assertTrue(ByteUtils.equals(bytes, Base64Utils.decode(expected[i])));
+            assertTrue(ByteUtils.equals(bytes, Base64Utils.decode(expected[i].replace("=", ""))));
+        }
+
+        byte[] bytes = { (byte) 0xFB, (byte) 0xFF };
+        assertEquals("+/8=", Base64Utils.encode(bytes, Base64Utils.Variant.STANDARD));
+        assertEquals("+/8", Base64Utils.encode(bytes, Base64Utils.Variant.STANDARD_UNPADDED));
+        assertEquals("-_8=", Base64Utils.encode(bytes, Base64Utils.Variant.URL_SAFE));
+        assertEquals("-_8", Base64Utils.encode(bytes, Base64Utils.Variant.URL_SAFE_UNPADDED));
+        assertTrue(ByteUtils.equals(bytes, Base64Utils.decode("-_8")));
+
+        for (Base64Utils.Variant variant : Base64Utils.Variant.values()) {
+            for (int i = 0; i < 300; i++) {
+                bytes = RandomUtils.generateRandomBytes(i);
+                String encoded = Base64Utils.encode(bytes, "  ", variant);
+                assertTrue(ByteUtils.equals(bytes, Base64Utils.decode(encoded)));
+                encoded = Base64Utils.encode(bytes, variant).replace("\n", "");
+                assertTrue(ByteUtils.equals(bytes, Base64Utils.decodeStrict(encoded)));
+            }
+        }
+
+        logger.info("Completed testVariants().\n");
+    }
+
+
+    /**
+     * This method verifies that white space is rejected when a string is decoded strictly.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testStrict() {
+        logger.info("Beginning testStrict()...");
+        byte[] bytes = RandomUtils.generateRandomBytes(100);
+        Base64Utils.decodeStrict(Base64Utils.encode(bytes));
+    }
+
+
+    /**
+     * This method verifies that the buffer based functions match the encode and decode
+     * functions for both heap and direct buffers, when called repeatedly with small buffers.
+     */
+    @Test
+    public void testBuffers() {
+        logger.info("Beginning testBuffers()...");
+
+        for (int i = 0; i < 200; i++) {
+            logger.info("  Buffering " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base64Utils.encode(bytes).replace("\n", "");
+
+            ByteBuffer source = ByteBuffer.wrap(bytes);
+            CharBuffer characters = CharBuffer.allocate(expected.length());
+            Base64Utils.encode(source, characters);
+            assertFalse(source.hasRemaining());
+            assertEquals(expected, characters.flip().toString());
+
+            source = ByteBuffer.allocateDirect(i);
+            source.put(bytes).flip();
+            ByteBuffer ascii = ByteBuffer.allocateDirect(expected.length());
+            ByteBuffer chunk = ByteBuffer.allocateDirect(16);
+            while (source.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base64Utils.encode(source, chunk) > 0);
+                ascii.put((ByteBuffer) chunk.flip());
+            }
+            ascii.flip();
+            byte[] encoded = new byte[ascii.remaining()];
+            ascii.get(encoded);
+            assertEquals(expected, new String(encoded, StandardCharsets.US_ASCII));
+
+            CharBuffer input = CharBuffer.wrap(expected);
+            ByteBuffer decoded = ByteBuffer.allocateDirect(i);
+            chunk = ByteBuffer.allocateDirect(5);
+            while (input.hasRemaining()) {
+                chunk.clear();
+                assertTrue(Base64Utils.decode(input, chunk) > 0);
+                decoded.put((ByteBuffer) chunk.flip());
+            }
+            decoded.flip();
+            byte[] result = new byte[decoded.remaining()];
+            decoded.get(result);
+            assertTrue(ByteUtils.equals(bytes, result));
+
+            // the URL safe characters are accepted just as they are by the string functions
+            String urlSafe = expected.replace('+', '-').replace('/', '_');
+            decoded = ByteBuffer.allocate(i);
+            Base64Utils.decode(CharBuffer.wrap(urlSafe), decoded);
+            assertTrue(ByteUtils.equals(Base64Utils.decode(urlSafe), decoded.array()));
+            assertTrue(ByteUtils.equals(bytes, decoded.array()));
+        }
+
+        logger.info("Completed testBuffers().\n");
+    }
+
+
+    /**
+     * This method verifies that the streaming encoder and decoder match the
+     * encode and decode functions no matter how the bytes are chunked.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreaming() throws IOException {
+        logger.info("Beginning testStreaming()...");
+
+        for (int i = 0; i < 1000; i += 7) {
+            logger.info("  Streaming " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base64Utils.encode(bytes, "    ");
+
+            StringWriter writer = new StringWriter();
+            try (OutputStream output = new Base64OutputStream(writer, "    ")) {
+                int index = 0;
+                while (index < i) {
+                    int length = Math.min(RandomUtils.pickRandomIndex(100), i - index);
+                    output.write(bytes, index, length);
+                    index += length;
+                }
+            }
+            assertEquals(expected, writer.toString());
+
+            byte[] decoded = new byte[i];
+            try (InputStream input = new Base64InputStream(new StringReader(expected))) {
+                int index = 0;
+                int length;
+                while ((length = input.read(decoded, index, Math.min(1 + RandomUtils.pickRandomIndex(100), i - index))) > 0) {
+                    index += length;
+                }
+                assertEquals(i, index);
+                assertEquals(-1, input.read());
+            }
+            assertTrue(ByteUtils.equals(decoded, bytes));
+        }
+
+        logger.info("Completed testStreaming().\n");
+    }
+
+    /**
+     * This method verifies that the streaming encoder formats its lines exactly like the
+     * encode function for any line width.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreamingLineWidths() throws IOException {
+        logger.info("Beginning testStreamingLineWidths()...");
+
+        byte[] bytes = RandomUtils.generateRandomBytes(500);
+        int[] lineWidths = { 1, 7, 64, 76, 80, 81, 1000 };
+        for (int lineWidth : lineWidths) {
+            logger.info("  Streaming with a line width of " + lineWidth + "...");
+            String expected = Base64Utils.encode(bytes, "  ", lineWidth);
+            StringWriter writer = new StringWriter();
+            try (OutputStream output = new Base64OutputStream(writer, "  ", lineWidth)) {
+                output.write(bytes, 0, 123);
+                for (int i = 123; i < 200; i++) output.write(bytes[i]);
+                output.write(bytes, 200, 300);
+            }
+            assertEquals(expected, writer.toString());
+        }
+
+        logger.info("Completed testStreamingLineWidths().\n");
+    }
+
+
+    /**
+     * This method verifies that long compact strings, which may be converted a whole vector
+     * at a time, match the buffer based functions and that invalid characters are still found.
+     */
+    @Test
+    public void testLongValues() {
+        logger.info("Beginning testLongValues()...");
+
+        for (int i = 0; i < 1000; i += 13) {
+            logger.info("  Converting " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            CharBuffer expected = CharBuffer.allocate((i + 2) / 3 * 4);
+            Base64Utils.encode(ByteBuffer.wrap(bytes), expected);
+            char[] chars = new char[(i + 2) / 3 * 4];
+            assertEquals(chars.length, Base64Utils.codec.encode(bytes, 0, i, chars, 0));
+            assertEquals(expected.flip().toString(), new String(chars));
+
+            byte[] decoded = new byte[i];
+            assertEquals(i, Base64Utils.codec.decode(chars, 0, chars.length, decoded, 0));
+            assertTrue(ByteUtils.equals(bytes, decoded));
+            assertTrue(ByteUtils.equals(bytes, Base64Utils.decodeStrict(new String(chars))));
+
+            String urlSafe = Base64Utils.encode(bytes, Base64Utils.Variant.URL_SAFE).replace("\n", "");
+            assertEquals(new String(chars).replace('+', '-').replace('/', '_'), urlSafe);
+            assertTrue(ByteUtils.equals(bytes, Base64Utils.decodeStrict(urlSafe)));
+
+            if (i > 0) {
+                chars[RandomUtils.pickRandomIndex(i * 4 / 3)] = '*';
+                try {
+                    Base64Utils.decodeStrict(new String(chars));
+                    fail("An invalid character was decoded.");
+                } catch (NumberFormatException e) {
+                    // expected
+                }
+            }
+        }
+
+        logger.info("Completed testLongValues().\n");
+    }
+
+
+    /**
+     * This method verifies that the validation functions agree with the decode function
+     * without decoding or throwing exceptions.
+     */
+    @Test
+    public void testValidation() {
+        logger.info("Beginning testValidation()...");
+
+        assertTrue(Base64Utils.isValid("Zm9v YmFy\nYg=="));
+        assertEquals(7, Base64Utils.decodedLength("Zm9v YmFy\nYg=="));
+        byte[] bytes = new byte[7 + 1];
+        assertEquals(7, Base64Utils.tryDecode("Zm9v YmFy\nYg==", bytes, 1));
+        assertTrue(Arrays.equals(Base64Utils.decode("Zm9v YmFy\nYg=="), Arrays.copyOfRange(bytes, 1, bytes.length)));
+
+        assertFalse(Base64Utils.isValid("Zm9v*mFy"));
+        assertEquals(-1, Base64Utils.decodedLength("Zm9v*mFy"));
+        assertEquals(-(4 + 1), Base64Utils.tryDecode("Zm9v*mFy", bytes, 0));
+        assertEquals(-(5 + 1), Base64Utils.tryDecode("Zm9vY", bytes, 0));
+
+        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < 100; i++) {
+            StringBuilder string = new StringBuilder();
+            int length = RandomUtils.pickRandomIndex(20);
+            for (int j = 0; j < length; j++) {
+                if (RandomUtils.pickRandomIndex(40) == 0) {
+                    string.append("*.!$".charAt(RandomUtils.pickRandomIndex(4)));
+                } else {
+                    string.append(characters.charAt(RandomUtils.pickRandomIndex(characters.length())));
+                }
+            }
+            int expected;
+            try {
+                expected = Base64Utils.decode(string.toString()).length;
+            } catch (NumberFormatException e) {
+                expected = -1;
+            }
+            assertEquals(expected >= 0, Base64Utils.isValid(string));
+            assertEquals(expected, Base64Utils.decodedLength(string));
+        }
+
+        logger.info("Completed testValidation().\n");
+    }
+
+
+    /**
+     * This method verifies that the ASCII functions match the string based functions exactly.
+     */
+    @Test
+    public void testAscii() {
+        logger.info("Beginning testAscii()...");
+
+        for (int i = 0; i < 300; i += 11) {
+            logger.info("  Converting " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base64Utils.encode(bytes);
+            byte[] ascii = Base64Utils.encodeToAscii(bytes);
+            assertTrue(Arrays.equals(expected.getBytes(StandardCharsets.US_ASCII), ascii));
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeFromAscii(ascii)));
+
+            expected = Base64Utils.encode(bytes, "  ", 30, Base64Utils.Variant.URL_SAFE);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length() + 2);
+            buffer.put((byte) '[');
+            assertEquals(expected.length(), Base64Utils.encodeToAscii(bytes, "  ", 30, Base64Utils.Variant.URL_SAFE, buffer));
+            buffer.put((byte) ']').flip();
+            byte[] result = new byte[buffer.remaining()];
+            buffer.get(result);
+            assertEquals("[" + expected + "]", new String(result, StandardCharsets.US_ASCII));
+
+            buffer.position(1).limit(buffer.limit() - 1);
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeFromAscii(buffer)));
+            assertEquals(buffer.limit(), buffer.position());
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeFromAscii(result, 1, result.length - 2)));
+        }
+
+        logger.info("  Converting several chunks of characters...");
+        byte[] bytes = RandomUtils.generateRandomBytes(9000);
+        byte[] chunks = Base64Utils.encodeToAscii(bytes);
+        assertTrue(Arrays.equals(bytes, Base64Utils.decodeFromAscii(chunks)));
+        assertTrue(Arrays.equals(bytes, Base64Utils.decode(Base64Utils.encode(bytes, null, Integer.MAX_VALUE))));
+        chunks[chunks.length - 100] = (byte) '*';  // an invalid character in the last chunk
+        try {
+            Base64Utils.decodeFromAscii(chunks);
+            fail("An invalid character in the last chunk was decoded.");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+
+        byte[] ascii = Base64Utils.encodeToAscii(RandomUtils.generateRandomBytes(10));
+        ascii[3] = (byte) 0xC1;  // not an ASCII character
+        try {
+            Base64Utils.decodeFromAscii(ascii);
+            fail("A byte that is not ASCII was decoded.");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+
+        logger.info("Completed testAscii().\n");
+    }
+
+
+    /**
+     * This method verifies that encoding into an appendable matches the encode functions.
+     *
+     * @throws IOException The characters could not be appended.
+     */
+    @Test
+    public void testAppendable() throws IOException {
+        logger.info("Beginning testAppendable()...");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i += 61) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base64Utils.encode(bytes, "    ", 60);
+
+            builder.setLength(0);
+            builder.append("prefix:");
+            Base64Utils.encode(bytes, "    ", 60, builder);
+            assertEquals("prefix:" + expected, builder.toString());
+
+            StringWriter writer = new StringWriter();
+            Base64Utils.encode(bytes, writer);
+            assertEquals(Base64Utils.encode(bytes), writer.toString());
+
+            CharBuffer buffer = CharBuffer.allocate(expected.length());
+            Base64Utils.encode(bytes, "    ", 60, buffer);
+            assertEquals(expected, new String(buffer.array()));
+
+            builder.setLength(0);
+            Base64Utils.encode(bytes, null, Integer.MAX_VALUE, Base64Utils.Variant.URL_SAFE_UNPADDED, builder);
+            assertEquals(Base64Utils.encode(bytes, null, Integer.MAX_VALUE, Base64Utils.Variant.URL_SAFE_UNPADDED), builder.toString());
+        }
+
+        logger.info("Completed testAppendable().\n");
+    }
+
+
+    /**
+     * This method verifies that ASCII characters decoded in place match the decode function.
+     */
+    @Test
+    public void testDecodeInPlace() {
+        logger.info("Beginning testDecodeInPlace()...");
+
+        for (int i = 0; i < 500; i += 7) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            byte[] ascii = Base64Utils.encode(bytes, "  ").getBytes(StandardCharsets.US_ASCII);
+            byte[] buffer = new byte[ascii.length + 10];
+            System.arraycopy(ascii, 0, buffer, 5, ascii.length);
+            int length = Base64Utils.decodeInPlace(buffer, 5, ascii.length);
+            assertEquals(i, length);
+            assertTrue(Arrays.equals(bytes, Arrays.copyOfRange(buffer, 5, 5 + length)));
+        }
+
+        try {
+            byte[] ascii = "  AB*D".getBytes(StandardCharsets.US_ASCII);
+            Base64Utils.decodeInPlace(ascii, 2, ascii.length - 2);
+            fail("An invalid character was decoded.");
+        } catch (NumberFormatException e) {
+            logger.info("  The invalid character was rejected as expected.");
+            assertEquals("Attempted to decode a character that is not base 64 at offset 4.", e.getMessage());
+        }
+
+        logger.info("Completed testDecodeInPlace().\n");
+    }
+
 }
@@ -11,6 +11,9 @@ package craterdog.utils;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -102,6 +105,360 @@ public class ByteUtilsTest {
         logger.info("Completed testRoundTripConversions().\n");
     }
 
+    /**
+     * This method verifies that the primitive conversions use the big endian wire format,
+     * including buffers that are too short to hold the whole value.
+     */
+    @Test
+    public void testWireFormat() {
+        logger.info("Beginning testWireFormat()...");
+
+        for (int i = 0; i < 1000; i++) {
+            long l = RandomUtils.pickRandomIndex(Integer.MAX_VALUE) * 0x9E3779B97F4A7C15L;
+            ByteBuffer expected = ByteBuffer.allocate(8).putLong(l);
+            assertArrayEquals(expected.array(), ByteUtils.longToBytes(l));
+            assertEquals(l, ByteUtils.bytesToLong(expected.array()));
+            assertArrayEquals(expected.array(), ByteUtils.doubleToBytes(Double.longBitsToDouble(l)));
+            assertArrayEquals(Arrays.copyOfRange(expected.array(), 4, 8), ByteUtils.intToBytes((int) l));
+            assertEquals((int) l, ByteUtils.bytesToInt(expected.array(), 4));
+            assertArrayEquals(Arrays.copyOfRange(expected.array(), 6, 8), ByteUtils.shortToBytes((short) l));
+            assertEquals((short) l, ByteUtils.bytesToShort(expected.array(), 6));
+
+            logger.debug("  Testing truncated buffers...");
+            byte[] buffer = new byte[3];
+            assertEquals(3, ByteUtils.intToBytes((int) l, buffer, 0));
+            assertArrayEquals(Arrays.copyOfRange(expected.array(), 5, 8), buffer);
+            assertEquals((int) l & 0xFFFFFF, ByteUtils.bytesToInt(buffer, 0));
+            assertEquals(2, ByteUtils.longToBytes(l, buffer, 1));
+            assertArrayEquals(Arrays.copyOfRange(expected.array(), 6, 8), Arrays.copyOfRange(buffer, 1, 3));
+            assertEquals(l & 0xFFFF, ByteUtils.bytesToLong(buffer, 1));
+            double d = Double.longBitsToDouble(l);
+            assertEquals(2, ByteUtils.doubleToBytes(d, buffer, 1));
+            assertArrayEquals(Arrays.copyOfRange(expected.array(), 6, 8), Arrays.copyOfRange(buffer, 1, 3));
+            assertEquals(Double.longBitsToDouble(l & 0xFFFF), ByteUtils.bytesToDouble(buffer, 1), 0.0D);
+        }
+
+        logger.info("Completed testWireFormat().\n");
+    }
+
+    /**
+     * This method verifies that the conversions that take a byte order match the corresponding
+     * <code>ByteBuffer</code> format for both byte orders.
+     */
+    @Test
+    public void testByteOrder() {
+        logger.info("Beginning testByteOrder()...");
+
+        logger.info("  Testing big endian conversions of chars and floats...");
+        char expectedChar = '\u20AC';
+        byte[] bytes = ByteUtils.charToBytes(expectedChar);
+        assertArrayEquals(ByteBuffer.allocate(2).putChar(expectedChar).array(), bytes);
+        assertEquals(expectedChar, ByteUtils.bytesToChar(bytes));
+        float expectedFloat = (float) Math.PI;
+        bytes = ByteUtils.floatToBytes(expectedFloat);
+        assertArrayEquals(ByteBuffer.allocate(4).putFloat(expectedFloat).array(), bytes);
+        assertEquals(expectedFloat, ByteUtils.bytesToFloat(bytes), 0.0F);
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            logger.info("  Testing " + order + " conversions...");
+            for (int i = 0; i < 1000; i++) {
+                long l = RandomUtils.pickRandomIndex(Integer.MAX_VALUE) * 0x9E3779B97F4A7C15L;
+                int index = RandomUtils.pickRandomIndex(8);
+                byte[] buffer = new byte[index + 8];
+                ByteBuffer expected = ByteBuffer.allocate(index + 8).order(order);
+
+                assertEquals(2, ByteUtils.shortToBytes((short) l, buffer, index, order));
+                assertArrayEquals(expected.putShort(index, (short) l).array(), buffer);
+                assertEquals((short) l, ByteUtils.bytesToShort(buffer, index, order));
+
+                assertEquals(2, ByteUtils.charToBytes((char) l, buffer, index, order));
+                assertArrayEquals(expected.putChar(index, (char) l).array(), buffer);
+                assertEquals((char) l, ByteUtils.bytesToChar(buffer, index, order));
+
+                assertEquals(4, ByteUtils.intToBytes((int) l, buffer, index, order));
+                assertArrayEquals(expected.putInt(index, (int) l).array(), buffer);
+                assertEquals((int) l, ByteUtils.bytesToInt(buffer, index, order));
+
+                float f = Float.intBitsToFloat((int) l);
+                assertEquals(4, ByteUtils.floatToBytes(f, buffer, index, order));
+                assertArrayEquals(expected.putFloat(index, f).array(), buffer);
+                assertEquals(Float.floatToIntBits(f), Float.floatToIntBits(ByteUtils.bytesToFloat(buffer, index, order)));
+
+                assertEquals(8, ByteUtils.longToBytes(l, buffer, index, order));
+                assertArrayEquals(expected.putLong(index, l).array(), buffer);
+                assertEquals(l, ByteUtils.bytesToLong(buffer, index, order));
+
+                double d = Double.longBitsToDouble(l);
+                assertEquals(8, ByteUtils.doubleToBytes(d, buffer, index, order));
+                assertArrayEquals(expected.putDouble(index, d).array(), buffer);
+                assertEquals(Double.doubleToLongBits(d), Double.doubleToLongBits(ByteUtils.bytesToDouble(buffer, index, order)));
+            }
+        }
+
+        logger.info("Completed testByteOrder().\n");
+    }
+
+    /**
+     * This method verifies that the byte buffer conversions write the same bytes as the byte
+     * array conversions, whatever the kind and byte order of the buffer, and that neither
+     * the position nor the byte order of the buffer is changed.
+     */
+    @Test
+    public void testByteBufferConversions() {
+        logger.info("Beginning testByteBufferConversions()...");
+
+        BigInteger integer = new BigInteger("-123456789012345678901234567890");
+        BigDecimal decimal = new BigDecimal("3.1415E2043");
+        String string = "This is a test string with a \" in it.";
+        byte[] expected = new byte[200];
+        int length = 0;
+        length += ByteUtils.booleanToBytes(true, expected, length);
+        length += ByteUtils.shortToBytes((short) 0xFACE, expected, length);
+        length += ByteUtils.charToBytes('\u20AC', expected, length);
+        length += ByteUtils.intToBytes(0x1234FACE, expected, length);
+        length += ByteUtils.longToBytes(0x012345FACE67L, expected, length);
+        length += ByteUtils.bigIntegerToBytes(integer, expected, length);
+        length += ByteUtils.floatToBytes((float) Math.PI, expected, length);
+        length += ByteUtils.doubleToBytes(Math.E, expected, length);
+        length += ByteUtils.bigDecimalToBytes(decimal, expected, length);
+        int stringLength = ByteUtils.stringToBytes(string, expected, length);
+        length += stringLength;
+
+        logger.info("  Testing byte array round trips...");
+        assertEquals(integer, ByteUtils.bytesToBigInteger(expected, 17));
+        int index = 17 + 4 + integer.toByteArray().length + 12;
+        assertEquals(decimal, ByteUtils.bytesToBigDecimal(expected, index));
+
+        ByteBuffer[] buffers = {
+            ByteBuffer.allocate(200),
+            ByteBuffer.allocateDirect(200),
+            ByteBuffer.allocateDirect(200).order(ByteOrder.LITTLE_ENDIAN)
+        };
+        for (ByteBuffer buffer : buffers) {
+            logger.info("  Testing " + (buffer.isDirect() ? "direct " : "heap ") + buffer.order() + " buffers...");
+            buffer.position(7);
+            index = 0;
+            index += ByteUtils.booleanToBytes(true, buffer, index);
+            index += ByteUtils.shortToBytes((short) 0xFACE, buffer, index);
+            index += ByteUtils.charToBytes('\u20AC', buffer, index);
+            index += ByteUtils.intToBytes(0x1234FACE, buffer, index);
+            index += ByteUtils.longToBytes(0x012345FACE67L, buffer, index);
+            index += ByteUtils.bigIntegerToBytes(integer, buffer, index);
+            index += ByteUtils.floatToBytes((float) Math.PI, buffer, index);
+            index += ByteUtils.doubleToBytes(Math.E, buffer, index);
+            index += ByteUtils.bigDecimalToBytes(decimal, buffer, index);
+            index += ByteUtils.stringToBytes(string, buffer, index);
+            assertEquals(length, index);
+            assertEquals(7, buffer.position());
+
+            byte[] actual = new byte[200];
+            buffer.position(0);
+            buffer.get(actual);
+            assertArrayEquals(expected, actual);
+
+            index = 0;
+            assertTrue(ByteUtils.bytesToBoolean(buffer, index));
+            assertEquals((short) 0xFACE, ByteUtils.bytesToShort(buffer, index + 1));
+            assertEquals('\u20AC', ByteUtils.bytesToChar(buffer, index + 3));
+            assertEquals(0x1234FACE, ByteUtils.bytesToInt(buffer, index + 5));
+            assertEquals(0x012345FACE67L, ByteUtils.bytesToLong(buffer, index + 9));
+            assertEquals(integer, ByteUtils.bytesToBigInteger(buffer, index + 17));
+            index += 17 + 4 + integer.toByteArray().length;
+            assertEquals((float) Math.PI, ByteUtils.bytesToFloat(buffer, index), 0.0F);
+            assertEquals(Math.E, ByteUtils.bytesToDouble(buffer, index + 4), 0.0D);
+            assertEquals(decimal, ByteUtils.bytesToBigDecimal(buffer, index + 12));
+            assertEquals(string, ByteUtils.bytesToString(buffer, length - stringLength, stringLength));
+        }
+
+        logger.info("Completed testByteBufferConversions().\n");
+    }
+
+    /**
+     * This method verifies that whole arrays and slices of arrays of primitives are converted
+     * to the same bytes as their elements would be one at a time.
+     */
+    @Test
+    public void testArrayConversions() {
+        logger.info("Beginning testArrayConversions()...");
+
+        int size = 1000;
+        short[] shorts = new short[size];
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        float[] floats = new float[size];
+        double[] doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            longs[i] = RandomUtils.pickRandomIndex(Integer.MAX_VALUE) * 0x9E3779B97F4A7C15L;
+            shorts[i] = (short) longs[i];
+            ints[i] = (int) longs[i];
+            floats[i] = (float) Math.sqrt(i);
+            doubles[i] = Math.sqrt(longs[i] & 0x7FFFFFFFFFFFFFFFL);
+        }
+
+        logger.info("  Testing whole arrays...");
+        byte[] bytes = ByteUtils.longArrayToBytes(longs);
+        assertEquals(size * 8, bytes.length);
+        for (int i = 0; i < size; i++) {
+            assertEquals(longs[i], ByteUtils.bytesToLong(bytes, i * 8));
+        }
+        assertArrayEquals(longs, ByteUtils.bytesToLongArray(bytes));
+        assertArrayEquals(shorts, ByteUtils.bytesToShortArray(ByteUtils.shortArrayToBytes(shorts)));
+        assertArrayEquals(ints, ByteUtils.bytesToIntArray(ByteUtils.intArrayToBytes(ints)));
+        assertArrayEquals(floats, ByteUtils.bytesToFloatArray(ByteUtils.floatArrayToBytes(floats)), 0.0F);
+        assertArrayEquals(doubles, ByteUtils.bytesToDoubleArray(ByteUtils.doubleArrayToBytes(doubles)), 0.0D);
+
+        logger.info("  Testing slices of arrays...");
+        byte[] buffer = new byte[size * 8 + 3];
+        int offset = 100;
+        int length = 500;
+        assertEquals(length * 8, ByteUtils.doubleArrayToBytes(doubles, offset, length, buffer, 3));
+        for (int i = 0; i < length; i++) {
+            assertEquals(doubles[offset + i], ByteUtils.bytesToDouble(buffer, 3 + i * 8), 0.0D);
+        }
+        double[] slice = new double[size];
+        assertEquals(length * 8, ByteUtils.bytesToDoubleArray(buffer, 3, slice, offset, length));
+        for (int i = 0; i < size; i++) {
+            assertEquals(i < offset || i >= offset + length ? 0.0D : doubles[i], slice[i], 0.0D);
+        }
+        assertEquals(length * 2, ByteUtils.shortArrayToBytes(shorts, offset, length, buffer, 3));
+        assertEquals(shorts[offset + length - 1], ByteUtils.bytesToShort(buffer, 3 + (length - 1) * 2));
+        assertEquals(length * 4, ByteUtils.intArrayToBytes(ints, offset, length, buffer, 3));
+        assertEquals(ints[offset], ByteUtils.bytesToInt(buffer, 3));
+        assertEquals(length * 4, ByteUtils.floatArrayToBytes(floats, offset, length, buffer, 3));
+        assertEquals(floats[offset + 1], ByteUtils.bytesToFloat(buffer, 7), 0.0F);
+
+        logger.info("  Testing byte arrays with trailing bytes...");
+        byte[] uneven = new byte[17];
+        try {
+            ByteUtils.bytesToShortArray(uneven);
+            fail("An odd number of bytes was converted to shorts.");
+        } catch (IllegalArgumentException e) {
+            logger.info("  " + e.getMessage());
+        }
+        try {
+            ByteUtils.bytesToIntArray(uneven);
+            fail("Trailing bytes were dropped converting integers.");
+        } catch (IllegalArgumentException e) {
+            logger.info("  " + e.getMessage());
+        }
+        try {
+            ByteUtils.bytesToLongArray(uneven);
+            fail("Trailing bytes were dropped converting longs.");
+        } catch (IllegalArgumentException e) {
+            logger.info("  " + e.getMessage());
+        }
+        try {
+            ByteUtils.bytesToFloatArray(uneven);
+            fail("Trailing bytes were dropped converting floats.");
+        } catch (IllegalArgumentException e) {
+            logger.info("  " + e.getMessage());
+        }
+        try {
+            ByteUtils.bytesToDoubleArray(uneven);
+            fail("Trailing bytes were dropped converting doubles.");
+        } catch (IllegalArgumentException e) {
+            logger.info("  " + e.getMessage());
+        }
+
+        logger.info("Completed testArrayConversions().\n");
+    }
+
+    /**
+     * This method verifies the variable length and zig zag conversions, including their
+     * lengths at each boundary.
+     */
+    @Test
+    public void testVariableLengthConversions() {
+        logger.info("Beginning testVariableLengthConversions()...");
+
+        logger.info("  Testing known encodings...");
+        assertArrayEquals(new byte[] { 0 }, ByteUtils.varIntToBytes(0));
+        assertArrayEquals(new byte[] { 0x7F }, ByteUtils.varIntToBytes(127));
+        assertArrayEquals(new byte[] { (byte) 0xAC, 0x02 }, ByteUtils.varIntToBytes(300));
+        assertArrayEquals(new byte[] { -1, -1, -1, -1, 0x0F }, ByteUtils.varIntToBytes(-1));
+        assertEquals(10, ByteUtils.varLongToBytes(-1L).length);
+        byte[] buffer = new byte[10];
+        assertEquals(1, ByteUtils.zigZagIntToBytes(-1, buffer, 0));
+        assertEquals(1, buffer[0]);
+        assertEquals(1, ByteUtils.zigZagLongToBytes(1L, buffer, 0));
+        assertEquals(2, buffer[0]);
+
+        logger.info("  Testing round trips at each length boundary...");
+        buffer = new byte[13];
+        for (int bits = 0; bits < 64; bits++) {
+            for (long l : new long[] { (1L << bits) - 1, 1L << bits, -(1L << bits), -(1L << bits) - 1 }) {
+                int length = ByteUtils.varLongToBytes(l, buffer, 3);
+                assertEquals(ByteUtils.varLongLength(l), length);
+                assertEquals(l, ByteUtils.bytesToVarLong(buffer, 3));
+                length = ByteUtils.zigZagLongToBytes(l, buffer, 3);
+                assertEquals(ByteUtils.zigZagLongLength(l), length);
+                assertEquals(l, ByteUtils.bytesToZigZagLong(buffer, 3));
+                assertEquals(Math.min(10, (bits + 7) / 7), ByteUtils.zigZagLongLength(-(1L << bits)));
+
+                int i = (int) l;
+                length = ByteUtils.varIntToBytes(i, buffer, 3);
+                assertEquals(ByteUtils.varIntLength(i), length);
+                assertEquals(i, ByteUtils.bytesToVarInt(buffer, 3));
+                length = ByteUtils.zigZagIntToBytes(i, buffer, 3);
+                assertEquals(ByteUtils.zigZagIntLength(i), length);
+                assertEquals(i, ByteUtils.bytesToZigZagInt(buffer, 3));
+            }
+        }
+
+        logger.info("Completed testVariableLengthConversions().\n");
+    }
+
+    /**
+     * This method verifies that variable length integers that are too long, that are not in
+     * their shortest form, or that overflow are rejected.
+     */
+    @Test
+    public void testInvalidVariableLengths() {
+        logger.info("Beginning testInvalidVariableLengths()...");
+
+        byte[][] invalidInts = {
+            { -1, -1, -1, -1, -1, 0 },  // does not end
+            { (byte) 0x80, 0x00 },  // zero written in two bytes
+            { (byte) 0xFF, (byte) 0x80, 0x00 },  // 127 written in three bytes
+            { -1, -1, -1, -1, 0x10 }  // more than 32 bits
+        };
+        for (byte[] bytes : invalidInts) {
+            try {
+                ByteUtils.bytesToZigZagInt(bytes);
+                fail("An invalid variable length integer was accepted.");
+            } catch (NumberFormatException e) {
+                logger.info("  " + e.getMessage());
+            }
+        }
+
+        byte[][] invalidLongs = {
+            { -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0 },  // does not end
+            { (byte) 0x80, (byte) 0x80, 0x00 },  // zero written in three bytes
+            { -1, -1, -1, -1, -1, -1, -1, -1, -1, 0x02 }  // more than 64 bits
+        };
+        for (byte[] bytes : invalidLongs) {
+            try {
+                ByteUtils.bytesToVarLong(bytes);
+                fail("An invalid variable length long was accepted.");
+            } catch (NumberFormatException e) {
+                logger.info("  " + e.getMessage());
+            }
+        }
+
+        logger.info("  Testing the longest valid encodings...");
+        assertEquals(-1, ByteUtils.bytesToVarInt(new byte[] { -1, -1, -1, -1, 0x0F }));
+        assertEquals(-1L, ByteUtils.bytesToVarLong(new byte[] { -1, -1, -1, -1, -1, -1, -1, -1, -1, 0x01 }));
+        assertEquals(Integer.MIN_VALUE, ByteUtils.bytesToZigZagInt(ByteUtils.zigZagIntToBytes(Integer.MIN_VALUE)));
+        assertEquals(Long.MIN_VALUE, ByteUtils.bytesToZigZagLong(ByteUtils.zigZagLongToBytes(Long.MIN_VALUE)));
+        byte[] buffer = new byte[10];
+        assertEquals(2, ByteUtils.varIntToBytes(300, buffer));
+        assertEquals(300, ByteUtils.bytesToVarInt(buffer));
+        assertEquals(3, ByteUtils.zigZagLongToBytes(-10000L, buffer));
+        assertEquals(-10000L, ByteUtils.bytesToZigZagLong(buffer));
+
+        logger.info("Completed testInvalidVariableLengths().\n");
+    }
+
     /**
      * This method tests byte to unsigned byte conversions.
      */
@@ -200,6 +557,13 @@ public class ByteUtilsTest {
         logger.info("  Comparing { 1, 2 } and { 1, 2 }...");
         assertEquals(0, ByteUtils.compare(oneTwo, oneTwo));
 
+        logger.info("  Comparing { -1 } and { 1 } as unsigned bytes...");
+        byte[] minusOne = { -1 };
+        assertEquals(-1, ByteUtils.compare(minusOne, one));
+        assertEquals(1, ByteUtils.compareUnsigned(minusOne, one));
+        assertEquals(-1, ByteUtils.compareUnsigned(one, oneTwo));
+        assertEquals(0, ByteUtils.compareUnsigned(oneTwo, oneTwo));
+
         logger.info("Completed testCompare().\n");
     }
 
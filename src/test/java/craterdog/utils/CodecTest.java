@@ -0,0 +1,115 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.util.Arrays;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class performs unit tests on the <code>Codec</code> implementations.
+ *
+ * @author Derk Norton
+ */
+public class CodecTest {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(CodecTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running Codec Unit Tests...\n");
+    }
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("Completed Codec Unit Tests.\n");
+    }
+
+    /**
+     * This method tests round-trip conversions through reused scratch buffers for each base.
+     */
+    @Test
+    public void testRoundTripConversions() {
+        logger.info("Beginning testRoundTripConversions()...");
+
+        int[] bases = { 2, 16, 32, 64 };
+        char[] chars = new char[2000];
+        byte[] decoded = new byte[300];
+        for (int base : bases) {
+            logger.info("  Testing base " + base + "...");
+            Codec codec = Codec.forBase(base);
+            for (int i = 0; i < 200; i++) {
+                byte[] bytes = RandomUtils.generateRandomBytes(i);
+                String expected = encode(base, bytes);
+                int length = codec.encode(bytes, 0, i, chars, 3);
+                assertEquals(codec.encodedLength(i), length);
+                assertEquals(expected, new String(chars, 3, length));
+                assertEquals(i, codec.decodedLength(chars, 3, length));
+                assertEquals(i, codec.decode(chars, 3, length, decoded, 5));
+                assertTrue(Arrays.equals(bytes, Arrays.copyOfRange(decoded, 5, 5 + i)));
+            }
+        }
+
+        logger.info("Completed testRoundTripConversions().\n");
+    }
+
+    /**
+     * This method tests that invalid characters are rejected.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidCharacter() {
+        logger.info("Beginning testInvalidCharacter()...");
+        char[] chars = "0123456789ABCDEFGHIJ".toCharArray();
+        Codec.forBase(32).decode(chars, 0, chars.length, new byte[20], 0);
+    }
+
+    /**
+     * This method tests that unsupported number bases are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedBase() {
+        logger.info("Beginning testUnsupportedBase()...");
+        Codec.forBase(10);
+    }
+
+
+    private String encode(int base, byte[] bytes) {
+        String encoded;
+        switch (base) {
+            case 2:
+                encoded = Base02Utils.encode(bytes);
+                break;
+            case 16:
+                encoded = Base16Utils.encode(bytes);
+                break;
+            case 32:
+                encoded = Base32Utils.encode(bytes);
+                break;
+            default:
+                encoded = Base64Utils.encode(bytes);
+                break;
+        }
+        return encoded.replace("\n", "");
+    }
+
+}
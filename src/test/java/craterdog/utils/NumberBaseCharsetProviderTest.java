@@ -0,0 +1,185 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.util.Arrays;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class performs unit tests on the <code>NumberBaseCharsetProvider</code> class.
+ *
+ * @author Derk Norton
+ */
+public class NumberBaseCharsetProviderTest {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(NumberBaseCharsetProviderTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running NumberBaseCharsetProvider Unit Tests...\n");
+    }
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("Completed NumberBaseCharsetProvider Unit Tests.\n");
+    }
+
+    /**
+     * This method verifies that the character set converts strings the same way as the
+     * encode and decode functions.
+     */
+    @Test
+    public void testStrings() {
+        logger.info("Beginning testStrings()...");
+
+        Charset base16 = Charset.forName("X-CraterDog-Base16");
+        for (int i = 0; i < 200; i++) {
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+            String expected = Base16Utils.encode(bytes, null, Integer.MAX_VALUE);
+            assertEquals(expected, new String(bytes, base16));
+            assertTrue(Arrays.equals(bytes, expected.getBytes(base16)));
+            assertEquals(ByteBuffer.wrap(bytes), base16.encode(expected));
+        }
+
+        logger.info("Completed testStrings().\n");
+    }
+
+    /**
+     * This method verifies that the character set can be used by the standard readers and
+     * writers, including formatted characters.
+     *
+     * @throws IOException The bytes could not be streamed.
+     */
+    @Test
+    public void testStreaming() throws IOException {
+        logger.info("Beginning testStreaming()...");
+
+        Charset base16 = Charset.forName("x-craterdog-base16");
+        for (int i = 0; i < 60000; i += 997) {
+            logger.info("  Streaming " + i + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(i);
+
+            StringBuilder builder = new StringBuilder();
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), base16)) {
+                char[] chars = new char[1 + RandomUtils.pickRandomIndex(100)];
+                int length;
+                while ((length = reader.read(chars)) > 0) {
+                    builder.append(chars, 0, length);
+                }
+            }
+            assertEquals(Base16Utils.encode(bytes, null, Integer.MAX_VALUE), builder.toString());
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(output, base16)) {
+                writer.write(Base16Utils.encode(bytes, "    "));
+            }
+            assertTrue(Arrays.equals(bytes, output.toByteArray()));
+        }
+
+        logger.info("Completed testStreaming().\n");
+    }
+
+    /**
+     * This method verifies that invalid characters are reported by a new encoder.
+     *
+     * @throws CharacterCodingException The characters could not be converted.
+     */
+    @Test(expected = CharacterCodingException.class)
+    public void testInvalidCharacter() throws CharacterCodingException {
+        logger.info("Beginning testInvalidCharacter()...");
+        Charset.forName("x-craterdog-base16").newEncoder().encode(CharBuffer.wrap("01G2"));
+    }
+
+    /**
+     * This method verifies that an invalid character is reported whatever action has been
+     * requested, rather than being dropped or replaced with a byte.
+     *
+     * @throws IOException The characters could not be written.
+     */
+    @Test
+    public void testMalformedCharacters() throws IOException {
+        logger.info("Beginning testMalformedCharacters()...");
+
+        Charset base16 = Charset.forName("x-craterdog-base16");
+        try {
+            "01G2".getBytes(base16);
+            fail("The invalid character should have been reported by getBytes.");
+        } catch (Error e) {
+            assertTrue(e.getCause() instanceof MalformedInputException);
+        }
+        try {
+            base16.encode("01G2");
+            fail("The invalid character should have been reported by encode.");
+        } catch (Error e) {
+            assertTrue(e.getCause() instanceof MalformedInputException);
+        }
+        try {
+            base16.newEncoder().onMalformedInput(CodingErrorAction.IGNORE).encode(CharBuffer.wrap("01G2"));
+            fail("The invalid character should have been reported when ignored.");
+        } catch (MalformedInputException e) {
+            logger.info("  The ignored character was reported: " + e);
+        }
+        Writer writer = new OutputStreamWriter(new ByteArrayOutputStream(), base16);
+        writer.write("01G2");
+        try {
+            writer.close();
+            fail("The invalid character should have been reported by the writer.");
+        } catch (MalformedInputException e) {
+            logger.info("  The written character was reported: " + e);
+        }
+
+        logger.info("Completed testMalformedCharacters().\n");
+    }
+
+    /**
+     * This method verifies that only the base 16 character set is provided, since readers would
+     * drop the final partial block of a base 32 or base 64 encoding.
+     */
+    @Test
+    public void testProvidedCharsets() {
+        logger.info("Beginning testProvidedCharsets()...");
+
+        assertTrue(Charset.isSupported("x-craterdog-base16"));
+        assertFalse(Charset.isSupported("x-craterdog-base32"));
+        assertFalse(Charset.isSupported("x-craterdog-base64"));
+
+        logger.info("Completed testProvidedCharsets().\n");
+    }
+
+}
@@ -0,0 +1,102 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import java.util.Arrays;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class performs unit tests on the <code>ParallelCoding</code> class.
+ *
+ * @author Derk Norton
+ */
+public class ParallelCodingTest {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(ParallelCodingTest.class);
+
+    static private final int width = LineFormatter.DEFAULT_LINE_WIDTH;
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running ParallelCoding Unit Tests...\n");
+    }
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("Completed ParallelCoding Unit Tests.\n");
+    }
+
+    /**
+     * This method verifies that parallel conversions match the sequential ones exactly.
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        logger.info("Beginning testParallelMatchesSequential()...");
+
+        int[] sizes = { 1, 59, 65536, 300007 };
+        for (int size : sizes) {
+            logger.info("  Testing " + size + " bytes...");
+            byte[] bytes = RandomUtils.generateRandomBytes(size);
+
+            int sequential = Integer.MAX_VALUE;
+            String base16 = LineFormatter.format(Base16Utils.codec, 1, bytes, "    ", width, sequential);
+            String base32 = LineFormatter.format(Base32Utils.codec, 5, bytes, "    ", width, sequential);
+            String base64 = LineFormatter.format(Base64Utils.codec, 3, bytes, "    ", width, sequential);
+            String unpadded = LineFormatter.format(Base64Utils.Variant.URL_SAFE_UNPADDED, 3, bytes, null, width, sequential);
+            String mime = LineFormatter.format(Base64Utils.codec, 3, bytes, null, 76, sequential);
+            assertEquals(base16, Base16Utils.encode(bytes, "    "));
+            assertEquals(unpadded, Base64Utils.encode(bytes, Base64Utils.Variant.URL_SAFE_UNPADDED));
+
+            int parallel = 1;
+            assertEquals(base16, LineFormatter.format(Base16Utils.codec, 1, bytes, "    ", width, parallel));
+            assertEquals(base32, LineFormatter.format(Base32Utils.codec, 5, bytes, "    ", width, parallel));
+            assertEquals(base64, LineFormatter.format(Base64Utils.codec, 3, bytes, "    ", width, parallel));
+            assertEquals(unpadded, LineFormatter.format(Base64Utils.Variant.URL_SAFE_UNPADDED, 3, bytes, null, width, parallel));
+            assertEquals(mime, LineFormatter.format(Base64Utils.codec, 3, bytes, null, 76, parallel));
+
+            assertTrue(Arrays.equals(bytes, Base16Utils.decodeSequence(base16, false, parallel)));
+            assertTrue(Arrays.equals(bytes, Base32Utils.decodeSequence(base32, false, parallel)));
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeSequence(base64, false, parallel)));
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeSequence(unpadded, false, parallel)));
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeSequence(mime, false, parallel)));
+
+            assertTrue(Arrays.equals(bytes, Base16Utils.decodeSequence(base16.replaceAll("\\s", ""), true, parallel)));
+            assertTrue(Arrays.equals(bytes, Base32Utils.decodeSequence(base32.replaceAll("\\s", ""), true, parallel)));
+            assertTrue(Arrays.equals(bytes, Base64Utils.decodeSequence(base64.replaceAll("\\s", ""), true, parallel)));
+        }
+
+        logger.info("Completed testParallelMatchesSequential().\n");
+    }
+
+    /**
+     * This method verifies that invalid characters are still detected in parallel.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidCharacter() {
+        logger.info("Beginning testInvalidCharacter()...");
+        String base32 = Base32Utils.encode(RandomUtils.generateRandomBytes(200000));
+        Base32Utils.decodeSequence(base32.substring(0, 100000) + "U" + base32.substring(100001), false, 1);
+    }
+
+}
@@ -0,0 +1,110 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.utils;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class performs unit tests on the <code>Transcoder</code> class.
+ *
+ * @author Derk Norton
+ */
+public class TranscoderTest {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(TranscoderTest.class);
+
+    static private final Codec[] codecs = {
+        Base02Utils.codec,
+        Base16Utils.codec,
+        Base32Utils.codec,
+        Base64Utils.Variant.STANDARD,
+        Base64Utils.Variant.URL_SAFE_UNPADDED
+    };
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running Transcoder Unit Tests...\n");
+    }
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("Completed Transcoder Unit Tests.\n");
+    }
+
+    /**
+     * This method verifies that transcoding matches decoding using one number base and then
+     * encoding using another, for each pair of number bases and formats.
+     */
+    @Test
+    public void testTranscoding() {
+        logger.info("Beginning testTranscoding()...");
+
+        for (Codec source : codecs) {
+            for (Codec target : codecs) {
+                logger.info("  Transcoding from " + name(source) + " to " + name(target) + "...");
+                Transcoder transcoder = Transcoder.between(source, target);
+                for (int i = 0; i < 100; i++) {
+                    byte[] bytes = RandomUtils.generateRandomBytes(i);
+                    String string = encode(source, bytes, "  ", 80);
+                    assertEquals(encode(target, bytes, null, 80), transcoder.transcode(string));
+                    assertEquals(encode(target, bytes, "    ", 80), transcoder.transcode(string, "    "));
+                    assertEquals(encode(target, bytes, "\t", 7), transcoder.transcode(string, "\t", 7));
+                }
+            }
+        }
+
+        logger.info("Completed testTranscoding().\n");
+    }
+
+    /**
+     * This method verifies that strings with invalid characters are rejected.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidCharacter() {
+        logger.info("Beginning testInvalidCharacter()...");
+        Transcoder.between(Base16Utils.codec, Base32Utils.codec).transcode("0F1G");
+    }
+
+    /**
+     * This method verifies that strings with invalid lengths are rejected.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidLength() {
+        logger.info("Beginning testInvalidLength()...");
+        Transcoder.between(Base32Utils.codec, Base64Utils.codec).transcode("CSQ");
+    }
+
+
+    static private String name(Codec codec) {
+        return codec instanceof Base64Utils.Variant ? "base 64 " + codec : codec.getClass().getSimpleName();
+    }
+
+
+    static private String encode(Codec codec, byte[] bytes, String indentation, int lineWidth) {
+        if (codec == Base02Utils.codec) return Base02Utils.encode(bytes, indentation, lineWidth);
+        if (codec == Base16Utils.codec) return Base16Utils.encode(bytes, indentation, lineWidth);
+        if (codec == Base32Utils.codec) return Base32Utils.encode(bytes, indentation, lineWidth);
+        return Base64Utils.encode(bytes, indentation, lineWidth, (Base64Utils.Variant) codec);
+    }
+
+}